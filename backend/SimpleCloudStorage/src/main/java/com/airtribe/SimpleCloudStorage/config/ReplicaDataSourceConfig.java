@@ -0,0 +1,54 @@
+package com.airtribe.SimpleCloudStorage.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Only active when replicas are configured; otherwise Spring Boot's single data source is used as before
+@Configuration
+@ConditionalOnProperty(name = "db.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    // Replicas share the primary's credentials and driver
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                             @Value("${db.replicas.urls}") List<String> urls,
+                                                             @Value("${db.replicas.max-lag-ms:5000}") long maxLagMillis,
+                                                             @Value("${db.replicas.read-your-writes-ms:10000}") long readYourWritesMillis) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url.trim()).build();
+            String name = "replica-" + (replicas.size() + 1);
+            replica.setPoolName(name);
+            replica.setReadOnly(true);
+            // Start without connections so an unreachable replica does not stop the application
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLagMillis, readYourWritesMillis);
+    }
+
+    // What JPA and everything else use; the real connection is taken at the first statement, when the
+    // transaction's read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
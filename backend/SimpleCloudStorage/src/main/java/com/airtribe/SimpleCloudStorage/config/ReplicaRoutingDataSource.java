@@ -0,0 +1,127 @@
+package com.airtribe.SimpleCloudStorage.config;
+
+import com.airtribe.SimpleCloudStorage.entity.Users;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * Replicas are checked every {@code db.replicas.health-check-ms}; one that does not answer, or whose
+ * replay lags more than {@code db.replicas.max-lag-ms} behind, gets no reads until it recovers. With
+ * no healthy replica, reads fall back to the primary. A user whose write transaction committed less
+ * than {@code db.replicas.read-your-writes-ms} ago reads from the primary, so they see their own
+ * change. Must sit behind a LazyConnectionDataSourceProxy: the read-only flag is only known once the
+ * transaction has started.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    // 0 when replay has caught up with everything received; a standby with no recent writes is not lagging
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+
+    private volatile List<String> healthy = List.of();
+    private final AtomicInteger next = new AtomicInteger();
+    // User id -> when their last write transaction committed
+    private final Map<Integer, Long> recentWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMillis, long readYourWritesMillis) {
+        this.replicas = replicas;
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWritesMillis = readYourWritesMillis;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentWrites.put(userId, System.currentTimeMillis());
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+
+        if (userId != null) {
+            Long wroteAt = recentWrites.get(userId);
+            if (wroteAt != null && System.currentTimeMillis() - wroteAt < readYourWritesMillis) {
+                return PRIMARY;
+            }
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${db.replicas.health-check-ms:5000}")
+    public void checkReplicas() {
+        List<String> up = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try (Connection connection = replica.getValue().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet lag = statement.executeQuery(LAG_QUERY)) {
+                    lag.next();
+                    long lagMillis = lag.getLong(1);
+                    if (lagMillis <= maxLagMillis) {
+                        up.add(replica.getKey());
+                    } else {
+                        log.warn("Replica {} is {} ms behind the primary; reads go elsewhere", replica.getKey(), lagMillis);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Replica {} failed its health check: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        if (!up.equals(healthy)) {
+            log.info("Healthy read replicas: {}", up);
+        }
+        healthy = List.copyOf(up);
+
+        long cutoff = System.currentTimeMillis() - readYourWritesMillis;
+        recentWrites.values().removeIf(wroteAt -> wroteAt < cutoff);
+    }
+
+    private static Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Users user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
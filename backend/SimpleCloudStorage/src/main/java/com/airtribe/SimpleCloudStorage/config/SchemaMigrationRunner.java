@@ -0,0 +1,68 @@
+package com.airtribe.SimpleCloudStorage.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Applies the SQL in db/migration after Hibernate's ddl-auto=update has created the tables.
+ * Covers what ddl-auto cannot do (dropping constraints, special indexes); every script must be
+ * idempotent because they all run on each startup.
+ * <p>
+ * The scripts run as part of initializing the EntityManagerFactory, right after Hibernate has
+ * updated the schema and before the factory is handed to any repository or service. Nothing can
+ * use JPA, and the web server cannot start, until they have been applied.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "db.migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationRunner implements BeanPostProcessor {
+
+    private final String location;
+
+    // The data source is taken from the factory bean, so this post-processor does not initialize it early
+    public SchemaMigrationRunner(@Value("${db.migrations.location:classpath:db/migration/*.sql}") String location) {
+        this.location = location;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof AbstractEntityManagerFactoryBean factoryBean) {
+            // Waits for Hibernate's schema update if the factory is bootstrapped in the background
+            factoryBean.getNativeEntityManagerFactory();
+            try {
+                migrate(factoryBean.getDataSource());
+            } catch (IOException e) {
+                throw new BeanInitializationException("Failed to read schema migrations from " + location, e);
+            }
+        }
+        return bean;
+    }
+
+    private void migrate(DataSource dataSource) throws IOException {
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources(location);
+        Arrays.sort(scripts, Comparator.comparing(Resource::getFilename));
+
+        for (Resource script : scripts) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(script);
+            // Each script is sent as a single statement so PL/pgSQL blocks are not split on ';'
+            populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            populator.execute(dataSource);
+            log.info("Applied schema migration {}", script.getFilename());
+        }
+    }
+}
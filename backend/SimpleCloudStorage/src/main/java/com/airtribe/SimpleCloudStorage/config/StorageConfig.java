@@ -0,0 +1,59 @@
+package com.airtribe.SimpleCloudStorage.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class StorageConfig {
+
+    // Shared pool for S3 part transfers; each upload also caps its own in-flight parts
+    @Bean
+    public ThreadPoolTaskExecutor s3TransferExecutor(@Value("${file.transfer.pool-size:16}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("s3-transfer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Ranged GETs for parallel downloads; kept apart from uploads so neither can starve the other
+    @Bean
+    public ThreadPoolTaskExecutor s3DownloadExecutor(@Value("${file.download.parallel.pool-size:16}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("s3-download-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Shared background fetches of downloads (SingleFlightFetcher); separate from the download pool, whose range parts they wait on.
+    // A fetch that cannot start at once is rejected and the download streams directly, so nothing queues by default
+    @Bean
+    public ThreadPoolTaskExecutor cacheFillExecutor(@Value("${file.cache.fill-threads:8}") int threads,
+                                                    @Value("${file.cache.fill-queue:0}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cache-fill-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Post-upload processing workers; the poller never claims more jobs than there are threads
+    @Bean
+    public ThreadPoolTaskExecutor processingExecutor(@Value("${file.processing.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("file-processing-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,28 @@
+package com.airtribe.SimpleCloudStorage.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public WebConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Open-in-view as Spring Boot would register it (spring.jpa.open-in-view=false), minus resumable
+    // upload sessions: an open EntityManager keeps its connection until the request ends, and a chunk
+    // upload spends most of that time reading the body from the client, completing one reading the
+    // assembled object back from S3 to hash it
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/api/files/uploads/*", "/api/files/uploads/*/complete");
+    }
+}
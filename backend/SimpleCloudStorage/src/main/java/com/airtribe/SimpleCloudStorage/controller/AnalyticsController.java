@@ -5,8 +5,11 @@ package com.airtribe.SimpleCloudStorage.controller;
 import com.airtribe.SimpleCloudStorage.config.JwtService;
 import com.airtribe.SimpleCloudStorage.dto.ErrorResponse;
 import com.airtribe.SimpleCloudStorage.entity.Users;
+import com.airtribe.SimpleCloudStorage.enums.Role;
 import com.airtribe.SimpleCloudStorage.exceptionHandler.UnauthorizedException;
 import com.airtribe.SimpleCloudStorage.service.AnalyticsService;
+import com.airtribe.SimpleCloudStorage.service.LocalObjectCache;
+import com.airtribe.SimpleCloudStorage.service.SingleFlightFetcher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,6 +27,8 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final LocalObjectCache objectCache;
+    private final SingleFlightFetcher singleFlightFetcher;
     private final JwtService jwtService; // Assuming you need JWT validation for analytics APIs too
 
     // Helper method for token extraction (can be shared or put in a utility class)
@@ -88,4 +93,25 @@ public class AnalyticsController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponse("SERVER_ERROR", "Failed to retrieve access frequency."));
         }
     }
+
+    // Hit and miss counters of the download cache, and how many downloads shared a fetch, for operators only
+    @GetMapping("/download-cache")
+    public ResponseEntity<?> getDownloadCacheStats(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                                   @AuthenticationPrincipal Users user) {
+        try {
+            String token = extractToken(authHeader);
+            if (!jwtService.isTokenValid(token, user)) {
+                throw new UnauthorizedException("Invalid or expired token");
+            }
+            if (user.getRole() != Role.ADMIN) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("FORBIDDEN", "Admin access required."));
+            }
+            return ResponseEntity.ok(Map.of("cache", objectCache.stats(), "fetches", singleFlightFetcher.stats()));
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting download cache stats: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponse("SERVER_ERROR", "Failed to retrieve download cache stats."));
+        }
+    }
 }
@@ -1,39 +1,64 @@
 package com.airtribe.SimpleCloudStorage.controller;
 
 import com.airtribe.SimpleCloudStorage.config.JwtService;
+import com.airtribe.SimpleCloudStorage.dto.BatchUploadResult;
+import com.airtribe.SimpleCloudStorage.dto.DownloadMetadata;
+import com.airtribe.SimpleCloudStorage.dto.DownloadUrlResponse;
 import com.airtribe.SimpleCloudStorage.dto.ErrorResponse;
+import com.airtribe.SimpleCloudStorage.dto.FilePage;
 import com.airtribe.SimpleCloudStorage.dto.FileResponse;
 import com.airtribe.SimpleCloudStorage.dto.FileVersionResponse;
+import com.airtribe.SimpleCloudStorage.dto.InstantUploadRequest;
+import com.airtribe.SimpleCloudStorage.dto.InstantUploadResponse;
 import com.airtribe.SimpleCloudStorage.dto.S3UploadResult;
+import com.airtribe.SimpleCloudStorage.dto.Suggestion;
+import com.airtribe.SimpleCloudStorage.dto.ZipDownloadRequest;
 import com.airtribe.SimpleCloudStorage.entity.File;
 import com.airtribe.SimpleCloudStorage.entity.Folder;
 import com.airtribe.SimpleCloudStorage.entity.Users;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
 import com.airtribe.SimpleCloudStorage.enums.FileStatus;
 import com.airtribe.SimpleCloudStorage.exceptionHandler.FileUnavailableException;
 import com.airtribe.SimpleCloudStorage.exceptionHandler.UnauthorizedException;
 import com.airtribe.SimpleCloudStorage.repository.FileRepository;
 import com.airtribe.SimpleCloudStorage.repository.FolderRepository;
+import com.airtribe.SimpleCloudStorage.service.AutocompleteIndex;
+import com.airtribe.SimpleCloudStorage.service.DownloadUrlSigner;
+import com.airtribe.SimpleCloudStorage.service.FileDownload;
 import com.airtribe.SimpleCloudStorage.service.FilePermissionService;
 import com.airtribe.SimpleCloudStorage.service.FileStorageService;
+import com.airtribe.SimpleCloudStorage.service.ZipDownloadService;
+import com.airtribe.SimpleCloudStorage.util.ByteRanges;
+import com.airtribe.SimpleCloudStorage.util.EntityTags;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.airtribe.SimpleCloudStorage.entity.Tag;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.Temporal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.stream;
@@ -44,10 +69,21 @@ import static java.util.Arrays.stream;
 @Slf4j
 public class FileController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FileStorageService fileStorageService;
     private final FileRepository fileRepository;
     private final JwtService jwtService;
     private final FilePermissionService permissionService;
+    private final ZipDownloadService zipDownloadService;
+    private final AutocompleteIndex autocompleteIndex;
+
+    // 'proxy' streams bytes through this server; 'redirect' sends clients to a short-lived signed URL
+    @Value("${file.download.mode:proxy}")
+    private String downloadMode;
+
+    @Value("${file.autocomplete.max-suggestions:20}")
+    private int maxSuggestions;
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadFile(@RequestPart("file")  MultipartFile multipartFile,
@@ -75,7 +111,9 @@ public class FileController {
                     fileEntity.isPublic(),
                     fileEntity.getFileType(),
                     fileEntity.getCreated_at(),
-                    tagNames
+                    tagNames,
+                    EntityTags.of(fileEntity),
+                    fileEntity.getUpdated_at()
             );
 
             return ResponseEntity.ok(response);
@@ -90,82 +128,395 @@ public class FileController {
                     .body(new ErrorResponse("File upload failed", "UPLOAD_FAILED"));
         }
     }
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadFiles(@RequestPart("files") List<MultipartFile> multipartFiles,
+                                         @RequestParam(required = false) Integer folderId,
+                                         @RequestParam(defaultValue = "false") boolean isPublic,
+                                         @AuthenticationPrincipal Users user) {
+        try {
+            List<BatchUploadResult> results = fileStorageService.uploadFiles(multipartFiles, user.getUserId(), folderId, isPublic);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_BATCH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Batch upload failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(new ErrorResponse("UPLOAD_FAILED", "Batch upload failed"));
+        }
+    }
+
+    @PostMapping("/upload/instant")
+    public ResponseEntity<?> instantUpload(@RequestBody InstantUploadRequest request,
+                                           @AuthenticationPrincipal Users user) {
+        try {
+            Optional<File> fileEntity = fileStorageService.instantUpload(request, user.getUserId());
+            if (fileEntity.isEmpty()) {
+                return ResponseEntity.ok(new InstantUploadResponse(true, null));
+            }
+
+            File file = fileEntity.get();
+            FileResponse response = new FileResponse(
+                    file.getFile_id(),
+                    file.getFileName(),
+                    file.getFileSize(),
+                    file.isPublic(),
+                    file.getFileType(),
+                    file.getCreated_at(),
+                    Collections.emptyList(),
+                    EntityTags.of(file),
+                    file.getUpdated_at()
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).body(new InstantUploadResponse(false, response));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_UPLOAD", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Instant upload failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(new ErrorResponse("UPLOAD_FAILED", "File upload failed"));
+        }
+    }
+
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Integer fileId,
-                                                 @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
-                                                 @AuthenticationPrincipal Users user)
+    public void downloadFile(@PathVariable Integer fileId,
+                             @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                             @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                             @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                             @AuthenticationPrincipal Users user,
+                             WebRequest request,
+                             HttpServletResponse response)
+            throws AccessDeniedException, IOException {
+
+        DownloadMetadata file = authorizeDownload(fileId, authHeader, user);
+
+        // Compressed content goes out as stored when the client can decode it
+        String storedEncoding = file.contentEncoding();
+        boolean passthrough = storedEncoding != null && acceptsEncoding(acceptEncoding, storedEncoding);
+
+        // Extract filename and content type
+        String filename = file.fileName(); // Should include extension
+        String fileType = file.fileType(); // e.g., application/pdf, image/png
+        log.info("fileType",fileType);
+        log.info("fileName",filename);
+
+        // Use Spring's ContentDisposition for better encoding
+        ContentDisposition contentDisposition = ContentDisposition
+                .attachment()
+                .filename(filename)
+                .build();
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString());
+        response.setHeader("X-File-Id", String.valueOf(file.fileId()));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (storedEncoding != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        // If-None-Match / If-Modified-Since: a 304 is answered from the database row alone, S3 is never touched
+        String entityTag = EntityTags.of(file, passthrough ? storedEncoding : null);
+        if (request.checkNotModified(entityTag, EntityTags.lastModified(file))) {
+            return;
+        }
+
+        // Storage serves the bytes; a Range is re-sent to it, so encoded content only goes there without one
+        if ("redirect".equalsIgnoreCase(downloadMode)) {
+            Optional<DownloadUrlSigner.SignedUrl> signed =
+                    fileStorageService.presignDownload(file, passthrough && rangeHeader == null);
+            if (signed.isPresent()) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                response.sendRedirect(signed.get().url());
+                return;
+            }
+        }
+
+        // Ranges always refer to the original bytes, never to a passed-through encoding
+        long length = file.fileSize();
+        List<ByteRanges.Range> ranges = rangeHeader != null && ifRangeMatches(ifRange, file)
+                ? ByteRanges.resolve(rangeHeader, length)
+                : null;
+        if (ranges != null) {
+            writeRanges(file, length, ranges, response);
+            return;
+        }
+
+        // Streamed straight from S3 to the client through a fixed buffer; nothing is held in memory
+        try (FileDownload download = fileStorageService.openDownload(file, passthrough)) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(fileType);
+            response.setContentLengthLong(download.getContentLength());
+            if (download.getContentEncoding() != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, download.getContentEncoding());
+            }
+            download.transferTo(response.getOutputStream());
+        }
+    }
+
+    // Signed URL for fetching the content directly from storage, for clients that prefer JSON to a redirect
+    @GetMapping("/download/{fileId}/url")
+    public ResponseEntity<?> getDownloadUrl(@PathVariable Integer fileId,
+                                            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            @AuthenticationPrincipal Users user)
             throws AccessDeniedException, FileNotFoundException {
 
+        DownloadMetadata file = authorizeDownload(fileId, authHeader, user);
+        String storedEncoding = file.contentEncoding();
+        boolean passthrough = storedEncoding != null && acceptsEncoding(acceptEncoding, storedEncoding);
+
+        return fileStorageService.presignDownload(file, passthrough)
+                .<ResponseEntity<?>>map(signed -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .body(new DownloadUrlResponse(signed.url(), signed.expiresAt())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ErrorResponse("DIRECT_DOWNLOAD_UNAVAILABLE", "This file can only be downloaded through /download/" + fileId)));
+    }
+
+    // One ZIP of a folder and its subfolders, streamed as it is built
+    @GetMapping("/download/folder/{folderId}")
+    public void downloadFolder(@PathVariable Integer folderId,
+                               @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                               @AuthenticationPrincipal Users user,
+                               HttpServletResponse response) throws IOException {
+        if (!jwtService.isTokenValid(extractToken(authHeader), user)) {
+            throw new UnauthorizedException("Invalid or expired token");
+        }
+        writeZip(zipDownloadService.folderArchive(folderId, user.getUserId()), response);
+    }
+
+    @PostMapping("/download/zip")
+    public void downloadSelection(@RequestBody ZipDownloadRequest request,
+                                  @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                  @AuthenticationPrincipal Users user,
+                                  HttpServletResponse response) throws IOException {
+        if (!jwtService.isTokenValid(extractToken(authHeader), user)) {
+            throw new UnauthorizedException("Invalid or expired token");
+        }
+        writeZip(zipDownloadService.selectionArchive(request.getFileIds(), user.getUserId()), response);
+    }
+
+    // The archive size is not known up front, so it goes out chunked; a failure halfway truncates it
+    private void writeZip(ZipDownloadService.ZipArchive archive, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(archive.fileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        zipDownloadService.writeZip(archive, response.getOutputStream());
+    }
+
+    // Endpoints without their own handling (e.g. the ZIP downloads) report invalid input as 400
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_REQUEST", e.getMessage()));
+    }
+
+    // One query for the file and the caller's access; the download reuses the result
+    private DownloadMetadata authorizeDownload(Integer fileId, String authHeader, Users user)
+            throws AccessDeniedException, FileNotFoundException {
         String token = extractToken(authHeader);
 
         if (!jwtService.isTokenValid(token, user)) {
             throw new AccessDeniedException("Invalid or expired token");
         }
 
-        File file = fileRepository.findById(fileId)
-                .orElseThrow(() -> new FileNotFoundException("File not found"));
+        DownloadMetadata file = fileStorageService.downloadMetadata(fileId, user.getUserId());
 
-        if (file.getStatus() != FileStatus.AVAILABLE) {
-            throw new FileUnavailableException("File is currently " + file.getStatus().getDisplayName());
+        if (file.status() != FileStatus.AVAILABLE) {
+            throw new FileUnavailableException("File is currently " + file.status().getDisplayName());
         }
 
-        if (!permissionService.canAccessFile(user.getUserId(), file)) {
+        if (!file.readable()) {
             throw new AccessDeniedException("No permission to access this file");
         }
+        return file;
+    }
 
-        Resource resource = fileStorageService.loadFileAsResource(fileId, file.getS3_key());
+    private void writeRanges(DownloadMetadata file, long length, List<ByteRanges.Range> ranges,
+                             HttpServletResponse response) throws IOException {
+        String fileType = file.fileType();
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setContentLength(0);
+            return;
+        }
 
-        // Extract filename and content type
-        String filename = file.getFileName(); // Should include extension
-        String fileType = file.getFileType(); // e.g., application/pdf, image/png
-        log.info("fileType",fileType);
-        log.info("fileName",filename);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            ByteRanges.Range range = ranges.get(0);
+            response.setContentType(fileType);
+            response.setContentLengthLong(range.length());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            try (FileDownload part = fileStorageService.openRange(file, range.start(), range.end())) {
+                part.transferTo(response.getOutputStream());
+            }
+            return;
+        }
 
-        // Use Spring's ContentDisposition for better encoding
-        ContentDisposition contentDisposition = ContentDisposition
-                .attachment()
-                .filename(filename)
-                .build();
+        // multipart/byteranges; part headers are built up front so Content-Length is exact
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        String partType = fileType != null ? fileType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (ByteRanges.Range range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + partType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            total += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        OutputStream out = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            ByteRanges.Range range = ranges.get(i);
+            out.write(partHeaders.get(i));
+            try (FileDownload part = fileStorageService.openRange(file, range.start(), range.end())) {
+                part.transferTo(out);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    private String contentRange(ByteRanges.Range range, long length) {
+        return "bytes " + range.start() + "-" + range.end() + "/" + length;
+    }
+
+    // A Range is only honoured while the client's copy is still current (RFC 9110, 13.1.5)
+    private boolean ifRangeMatches(String ifRange, DownloadMetadata file) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(EntityTags.of(file)); // weak tags never match
+        }
+        try {
+            long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return date == EntityTags.lastModified(file);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(fileType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
-                .header("X-File-Id", String.valueOf(file.getFile_id()))
-                .body(resource);
+    // True when the Accept-Encoding header lists the coding without q=0
+    private boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase(coding)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
 
+    // Paged by cursor: the X-Next-Cursor header of one page is the cursor parameter of the next
     @GetMapping
-    public ResponseEntity<List<FileResponse>> listUserFiles(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
-                                                            @AuthenticationPrincipal Users user) {
+    public ResponseEntity<List<FileResponse>> listUserFiles(@RequestParam(value = "sort", required = false) String sort,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                                            @AuthenticationPrincipal Users user,
+                                                            WebRequest request) {
         String token = extractToken(authHeader);
 
         if (!jwtService.isTokenValid(token, user)) {
             throw new UnauthorizedException("Invalid or expired token");
         }
 
-        List<FileResponse> response = fileStorageService.getAllFiles(user.getUserId());
+        FilePage response = fileStorageService.getFiles(user.getUserId(), FileSortOrder.fromParam(sort), cursor, limit);
 
-
-        return ResponseEntity.ok(response);
+        return listing(response, request);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<FileResponse>> searchFiles(
             @RequestParam("query") String query,
             @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
-            @AuthenticationPrincipal Users user
+            @AuthenticationPrincipal Users user,
+            WebRequest request
     ) {
         String token = extractToken(authHeader);
         if (!jwtService.isTokenValid(token, user)) {
             throw new UnauthorizedException("Invalid or expired token");
         }
         Integer userId = user.getUserId();
-        List<FileResponse> response = fileStorageService.searchFile(userId,query,tag);
+        // Best matches first unless the client picks an order
+        FileSortOrder order = sort == null ? FileSortOrder.RELEVANCE : FileSortOrder.fromParam(sort);
+        FilePage response = fileStorageService.searchFile(userId, query, tag, order, cursor, limit);
 
-        return ResponseEntity.ok(response);
+        return listing(response, request);
     }
+
+    // Listings carry a weak ETag; unchanged results are answered with a 304 and no body
+    private ResponseEntity<List<FileResponse>> listing(FilePage page, WebRequest request) {
+        String entityTag = EntityTags.ofListing(page.files());
+        if (request.checkNotModified(entityTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(entityTag);
+        if (page.nextCursor() != null) {
+            ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return ok.body(page.files());
+    }
+
+    // Typeahead over the user's own file and tag names, served from memory
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Suggestion>> autocomplete(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+            @AuthenticationPrincipal Users user
+    ) {
+        String token = extractToken(authHeader);
+        if (!jwtService.isTokenValid(token, user)) {
+            throw new UnauthorizedException("Invalid or expired token");
+        }
+        List<Suggestion> suggestions = autocompleteIndex.suggest(user.getUserId(), prefix, Math.min(limit, maxSuggestions));
+        return ResponseEntity.ok(suggestions);
+    }
+
+    @GetMapping("/{fileId}/status")
+    public ResponseEntity<?> getFileStatus(@PathVariable Integer fileId,
+                                           @AuthenticationPrincipal Users user) throws FileNotFoundException {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new FileNotFoundException("File not found"));
+
+        if (!permissionService.canAccessFile(user.getUserId(), file)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ErrorResponse("ACCESS_DENIED", "You don't have access to this file"));
+        }
+        return ResponseEntity.ok(fileStorageService.getFileStatus(fileId));
+    }
+
     @GetMapping("/{fileId}/versions")
     public ResponseEntity<?> getFileVersions(
             @PathVariable Integer fileId,
@@ -259,7 +610,9 @@ public class FileController {
                     updatedFile.isPublic(),
                     updatedFile.getFileType(),
                     updatedFile.getCreated_at(),
-                    tagNames
+                    tagNames,
+                    EntityTags.of(updatedFile),
+                    updatedFile.getUpdated_at()
             );
 
             return ResponseEntity.ok(response);
@@ -0,0 +1,111 @@
+package com.airtribe.SimpleCloudStorage.controller;
+
+import com.airtribe.SimpleCloudStorage.dto.ErrorResponse;
+import com.airtribe.SimpleCloudStorage.dto.FileResponse;
+import com.airtribe.SimpleCloudStorage.dto.UploadSessionRequest;
+import com.airtribe.SimpleCloudStorage.dto.UploadSessionResponse;
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.Users;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.service.ResumableUploadService;
+import com.airtribe.SimpleCloudStorage.util.EntityTags;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+// Resumable uploads: create a session, PUT chunks at part-aligned offsets, query progress, then finalize
+@RestController
+@RequestMapping("/api/files/uploads")
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadController {
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> createSession(@RequestBody UploadSessionRequest request,
+                                           @AuthenticationPrincipal Users user) {
+        try {
+            UploadSessionResponse session = resumableUploadService.createSession(request, user.getUserId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_UPLOAD", e.getMessage()));
+        } catch (AmazonS3Exception e) {
+            log.error("Failed to initiate resumable upload", e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("STORAGE_ERROR", "Storage service unavailable"));
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> getSession(@PathVariable String sessionId,
+                                                            @AuthenticationPrincipal Users user) throws FileNotFoundException {
+        return ResponseEntity.ok(resumableUploadService.getSession(sessionId, user.getUserId()));
+    }
+
+    @PutMapping(value = "/{sessionId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(@PathVariable String sessionId,
+                                         @RequestParam long offset,
+                                         InputStream content,
+                                         @AuthenticationPrincipal Users user) throws FileNotFoundException {
+        try {
+            return ResponseEntity.ok(resumableUploadService.uploadChunk(sessionId, user.getUserId(), offset, content));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_CHUNK", e.getMessage()));
+        } catch (AmazonS3Exception e) {
+            log.error("Failed to store chunk at offset {} for session {}", offset, sessionId, e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("STORAGE_ERROR", "Storage service unavailable"));
+        } catch (IOException e) {
+            log.error("Chunk transfer interrupted for session {}", sessionId, e);
+            return ResponseEntity.badRequest().body(new ErrorResponse("CHUNK_INTERRUPTED", "Chunk transfer was interrupted, please resend it"));
+        }
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<?> completeSession(@PathVariable String sessionId,
+                                             @AuthenticationPrincipal Users user) throws FileNotFoundException {
+        try {
+            File file = resumableUploadService.completeSession(sessionId, user.getUserId());
+            if (file.getStatus() == FileStatus.ERROR) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(new ErrorResponse("HASH_MISMATCH", "Uploaded content does not match the declared hash"));
+            }
+            return ResponseEntity.ok(new FileResponse(
+                    file.getFile_id(),
+                    file.getFileName(),
+                    file.getFileSize(),
+                    file.isPublic(),
+                    file.getFileType(),
+                    file.getCreated_at(),
+                    Collections.emptyList(),
+                    EntityTags.of(file),
+                    file.getUpdated_at()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("UPLOAD_INCOMPLETE", e.getMessage()));
+        } catch (AmazonS3Exception e) {
+            log.error("Failed to complete upload session {}", sessionId, e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("STORAGE_ERROR", "Storage service unavailable"));
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<?> abortSession(@PathVariable String sessionId,
+                                          @AuthenticationPrincipal Users user) throws FileNotFoundException {
+        resumableUploadService.abortSession(sessionId, user.getUserId());
+        return ResponseEntity.ok(Map.of("message", "Upload session aborted"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.airtribe.SimpleCloudStorage.controller;
+
+import com.airtribe.SimpleCloudStorage.service.FileDownload;
+import com.airtribe.SimpleCloudStorage.service.FileStorageService;
+import com.airtribe.SimpleCloudStorage.service.LocalDownloadUrlSigner;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+// Serves links issued by LocalDownloadUrlSigner; the signature is the only credential, like an S3 presigned URL
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file.download.signer", havingValue = "local")
+public class SignedDownloadController {
+
+    private final LocalDownloadUrlSigner signer;
+    private final FileStorageService fileStorageService;
+
+    @GetMapping("/api/files/signed")
+    public void download(@RequestParam String key,
+                         @RequestParam long expires,
+                         @RequestParam String disposition,
+                         @RequestParam(required = false) String type,
+                         @RequestParam(required = false) String encoding,
+                         @RequestParam String signature,
+                         HttpServletResponse response) throws IOException {
+        if (!signer.verify(key, expires, disposition, type, encoding, signature)) {
+            throw new AccessDeniedException("Link is invalid or has expired");
+        }
+
+        try (FileDownload download = fileStorageService.openStoredObject(key)) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+            if (type != null) {
+                response.setContentType(type);
+            }
+            if (encoding != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            }
+            response.setContentLengthLong(download.getContentLength());
+            download.transferTo(response.getOutputStream());
+        }
+    }
+}
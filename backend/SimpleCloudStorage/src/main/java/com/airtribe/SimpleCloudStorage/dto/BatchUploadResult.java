@@ -0,0 +1,14 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Outcome of one part of a batch upload; exactly one of file / error is set
+@Data
+@AllArgsConstructor
+public class BatchUploadResult {
+    private String fileName;
+    private boolean success;
+    private FileResponse file;
+    private ErrorResponse error;
+}
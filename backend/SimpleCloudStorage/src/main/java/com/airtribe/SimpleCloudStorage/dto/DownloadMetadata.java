@@ -0,0 +1,37 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+
+import java.util.Date;
+
+/**
+ * What a download needs to know about a file, read in one query together with whether the
+ * requesting user may read it (see FileRepository#findDownloadMetadata). Blob columns are null for
+ * legacy files stored under their own key.
+ */
+public record DownloadMetadata(
+        int fileId,
+        int ownerId,
+        String fileName,
+        String fileType,
+        long fileSize,
+        String fileHash,
+        String s3Key,
+        FileStatus status,
+        boolean chunked,
+        Date lastModified,
+        String blobKey,
+        Long blobSize,
+        String contentEncoding,
+        boolean readable
+) {
+    // Object holding the current content
+    public String contentKey() {
+        return blobKey != null ? blobKey : s3Key;
+    }
+
+    // Size of the original, decoded content
+    public long contentSize() {
+        return blobSize != null ? blobSize : fileSize;
+    }
+}
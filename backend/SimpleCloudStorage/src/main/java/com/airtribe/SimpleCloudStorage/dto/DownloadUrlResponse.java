@@ -0,0 +1,13 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class DownloadUrlResponse {
+    private String url;
+    private Instant expiresAt; // the URL stops working after this, request a new one
+}
@@ -0,0 +1,8 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+// One page of a listing; nextCursor is null on the last page
+public record FilePage(List<FileResponse> files, String nextCursor) implements Serializable {
+}
@@ -23,6 +23,9 @@ public class FileResponse implements Serializable {
     String filetype;
     Date createdAt;
     private List<String> tags;
+    // Same values as the ETag / Last-Modified of a download, so sync clients can spot changes without one
+    private String etag;
+    private Date updatedAt;
 
 
 }
@@ -0,0 +1,15 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+// Lets clients poll a fresh upload until post-upload processing has finished
+@Data
+@AllArgsConstructor
+public class FileStatusResponse {
+    private int fileId;
+    private String status;
+    private Map<String, String> metadata;
+}
@@ -0,0 +1,15 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class InstantUploadRequest {
+    private String fileName;
+    private String fileType;
+    private long fileSize;
+    private String fileHash; // URL-safe Base64 SHA-256, same encoding the server uses
+    private Integer folderId;
+    private Boolean isPublic;
+}
@@ -0,0 +1,11 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class InstantUploadResponse {
+    private boolean uploadRequired; // true when the client still has to send the bytes
+    private FileResponse file;
+}
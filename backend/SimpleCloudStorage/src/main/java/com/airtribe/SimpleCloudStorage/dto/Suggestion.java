@@ -0,0 +1,5 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+// An autocomplete entry: a file name or tag name, and how many of the user's files carry it
+public record Suggestion(String value, String type, int count) {
+}
@@ -0,0 +1,15 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String sessionId;
+    private int fileId;
+    private long totalSize;
+    private int partSize;
+    private long receivedBytes;
+    private String status;
+}
@@ -0,0 +1,12 @@
+package com.airtribe.SimpleCloudStorage.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ZipDownloadRequest {
+    private List<Integer> fileIds; // archived in this order; duplicate names get a numeric suffix
+}
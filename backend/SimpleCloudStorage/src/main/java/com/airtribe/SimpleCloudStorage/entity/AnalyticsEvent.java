@@ -16,7 +16,8 @@ import java.time.Instant;
 @NoArgsConstructor
 public class AnalyticsEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analytics_event_seq")
+    @SequenceGenerator(name = "analytics_event_seq", sequenceName = "analytics_event_seq", allocationSize = 50)
     private Long id;
 
     private Integer userId;
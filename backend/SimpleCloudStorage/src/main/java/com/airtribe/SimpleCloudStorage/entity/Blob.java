@@ -0,0 +1,53 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+// One stored S3 object per distinct content. File versions point here and hold one reference each.
+@Entity
+@Table(name = "content_blob")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Blob {
+
+    @Id
+    // Kept on IDENTITY: rows are written by BlobRepository#insertIfAbsent, which relies on the column default
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true)
+    private String contentHash;
+
+    @Column(name = "s3_key", nullable = false, unique = true)
+    private String s3Key;
+
+    // Size of the original content
+    private long size;
+
+    // Encoding of the stored object (null = stored as-is) and its size in S3
+    @Column(name = "content_encoding")
+    private String contentEncoding;
+
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    public boolean isCompressed() {
+        return contentEncoding != null;
+    }
+
+    @CreationTimestamp
+    private Date created_at;
+}
@@ -6,15 +6,24 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_file_hash", columnList = "fileHash"),
+        // Keyset pagination of a user's files, one per listing order (see FileSortOrder)
+        @Index(name = "idx_file_owner_name", columnList = "user_id, fileName, file_id"),
+        @Index(name = "idx_file_owner_created", columnList = "user_id, created_at, file_id"),
+        @Index(name = "idx_file_owner_size", columnList = "user_id, fileSize, file_id")
+})
 @AllArgsConstructor
 @Builder
 public class File {
@@ -22,7 +31,8 @@ public class File {
     @Getter
     @Setter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_seq")
+    @SequenceGenerator(name = "file_seq", sequenceName = "file_seq", allocationSize = 50)
     private int file_id;
 
     @Column(name = "user_id")
@@ -32,16 +42,26 @@ public class File {
     @JoinColumn(name = "folder_id")
     private Folder folder;
     private String fileName;
-    @Column(unique = true)
+    // Blob-backed files share the key of their blob, so it is no longer unique
     private String s3_key;
     private long fileSize;
 
-    @Column(nullable = false, unique = true)
+    // Not unique: several logical files may share the same content
+    @Column(nullable = false)
     private String fileHash;
     private String fileType;
     private String filePath;
     private boolean isPublic;
 
+    // Current content; null for legacy files stored under their own versioned S3 key
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id")
+    private Blob blob;
+
+    // Current content is a chunk manifest (see FileVersion / FileChunk) rather than a single blob
+    @ColumnDefault("false")
+    private boolean chunked;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private FileStatus status = FileStatus.AVAILABLE;
@@ -52,6 +72,13 @@ public class File {
             inverseJoinColumns = @JoinColumn(name = "tag_id"))
     private Set<Tag> tags = new HashSet<>();
 
+    // Filled in by post-upload processing (detected type, image dimensions, ...)
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "file_metadata", joinColumns = @JoinColumn(name = "file_id"))
+    @MapKeyColumn(name = "meta_key")
+    @Column(name = "meta_value", length = 1000)
+    private Map<String, String> metadata;
+
     @CreationTimestamp
     private Date created_at;
     @UpdateTimestamp
@@ -178,6 +205,30 @@ public class File {
         this.tags = tags;
     }
 
+    public Blob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(Blob blob) {
+        this.blob = blob;
+    }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+        this.metadata = metadata;
+    }
+
     public String getFileHash() {
         return fileHash;
     }
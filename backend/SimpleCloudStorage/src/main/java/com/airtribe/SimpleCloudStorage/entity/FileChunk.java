@@ -0,0 +1,38 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One entry of a chunked version's manifest; the chunk bytes live in a shared blob
+@Entity
+@Table(name = "file_chunk", indexes = @Index(name = "idx_file_chunk_version", columnList = "version_id, chunkIndex"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_chunk_seq")
+    @SequenceGenerator(name = "file_chunk_seq", sequenceName = "file_chunk_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "version_id", nullable = false)
+    private FileVersion version;
+
+    private int chunkIndex;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id", nullable = false)
+    private Blob blob;
+
+    // Position of the chunk within the file
+    private long chunkOffset;
+    private long chunkLength;
+}
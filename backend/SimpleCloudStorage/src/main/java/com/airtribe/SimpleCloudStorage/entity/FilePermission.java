@@ -4,9 +4,14 @@ import com.airtribe.SimpleCloudStorage.enums.PermissionType;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // Files shared with a user, and permission checks on one file, answered from the index alone
+        @Index(name = "idx_file_permission_user", columnList = "user_id, file_id, type")
+})
 public class FilePermission {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_permission_seq")
+    @SequenceGenerator(name = "file_permission_seq", sequenceName = "file_permission_seq", allocationSize = 50)
     private Long permissionId;
 
     @ManyToOne
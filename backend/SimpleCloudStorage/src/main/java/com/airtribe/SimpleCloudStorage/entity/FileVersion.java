@@ -0,0 +1,52 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+// Version history for blob-backed files; replaces S3 object versioning since blobs are shared
+@Entity
+@Table(name = "file_version", indexes = @Index(name = "idx_file_version_file", columnList = "file_id"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_version_seq")
+    @SequenceGenerator(name = "file_version_seq", sequenceName = "file_version_seq", allocationSize = 50)
+    private Long versionId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_id", nullable = false)
+    private File file;
+
+    // Whole-content blob; null for chunked versions, whose content is listed in file_chunk
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id")
+    private Blob blob;
+
+    @ColumnDefault("false")
+    private boolean chunked;
+
+    // Kept per version so restoring a chunked version does not need to re-hash the chunks
+    private String contentHash;
+
+    @Column(name = "user_id")
+    private int userId;
+
+    private long fileSize;
+    private String fileType;
+
+    @CreationTimestamp
+    private Date created_at;
+}
@@ -16,10 +16,14 @@ public class Folder {
     @Getter
     @Setter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folder_seq")
+    @SequenceGenerator(name = "folder_seq", sequenceName = "folder_seq", allocationSize = 50)
     private int folder_id;
+    @Getter
     private int user_id;
+    @Getter
     private String folderName;
+    @Getter
     private Integer parent_id;
     private Date created_at;
     @OneToMany(mappedBy = "folder",cascade = CascadeType.ALL,orphanRemoval = true)
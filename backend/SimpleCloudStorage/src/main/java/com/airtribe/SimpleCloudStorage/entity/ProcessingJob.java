@@ -0,0 +1,52 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import com.airtribe.SimpleCloudStorage.enums.ProcessingJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+// Persistent queue entry for post-upload processing; written in the same transaction as the file row
+@Entity
+@Table(name = "processing_job", indexes = @Index(name = "idx_processing_job_due", columnList = "status, nextAttemptAt"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processing_job_seq")
+    @SequenceGenerator(name = "processing_job_seq", sequenceName = "processing_job_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private int fileId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ProcessingJobStatus status;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private Date nextAttemptAt;
+
+    // Set while RUNNING, so jobs of a crashed worker can be picked up again
+    private Date lockedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    private Date created_at;
+    @UpdateTimestamp
+    private Date updated_at;
+}
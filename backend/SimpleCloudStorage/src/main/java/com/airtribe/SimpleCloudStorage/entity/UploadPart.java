@@ -0,0 +1,36 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "upload_part",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "part_number"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "upload_part_seq")
+    @SequenceGenerator(name = "upload_part_seq", sequenceName = "upload_part_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private UploadSession session;
+
+    @Column(name = "part_number", nullable = false)
+    private int partNumber;
+
+    @Column(nullable = false)
+    private String etag;
+
+    private long size;
+}
@@ -0,0 +1,73 @@
+package com.airtribe.SimpleCloudStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// A resumable upload in progress. The linked File stays UPLOADING until the session is finalized.
+@Entity
+@Table(name = "upload_session")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    private String sessionId;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @OneToOne
+    @JoinColumn(name = "file_id", nullable = false)
+    private File file;
+
+    @Column(nullable = false)
+    private String s3Key;
+
+    // S3 multipart upload id; each chunk maps onto one part
+    @Column(nullable = false)
+    private String uploadId;
+
+    private long totalSize;
+    private int partSize;
+
+    @Builder.Default
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("partNumber ASC")
+    private List<UploadPart> parts = new ArrayList<>();
+
+    @CreationTimestamp
+    private Date created_at;
+    @UpdateTimestamp
+    private Date updated_at;
+
+    public int getPartCount() {
+        return (int) Math.max(1, (totalSize + partSize - 1) / partSize);
+    }
+
+    // Bytes received contiguously from the start, i.e. the offset the client should resume from
+    public long getReceivedBytes() {
+        long received = 0;
+        int expectedPart = 1;
+        for (UploadPart part : parts) {
+            if (part.getPartNumber() != expectedPart) {
+                break;
+            }
+            received += part.getSize();
+            expectedPart++;
+        }
+        return received;
+    }
+}
@@ -0,0 +1,31 @@
+package com.airtribe.SimpleCloudStorage.enums;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+// Orders a file listing can be paged in; file_id breaks ties so every order is total
+@Getter
+public enum FileSortOrder {
+    NAME(false),     // A to Z
+    CREATED(true),   // newest first
+    SIZE(true),      // largest first
+    RELEVANCE(true); // best match first; search only
+
+    private final boolean descending;
+
+    FileSortOrder(boolean descending) {
+        this.descending = descending;
+    }
+
+    public static FileSortOrder fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NAME;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort '" + value + "', expected name, created, size or relevance");
+        }
+    }
+}
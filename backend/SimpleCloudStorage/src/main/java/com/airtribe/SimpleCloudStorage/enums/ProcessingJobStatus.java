@@ -0,0 +1,8 @@
+package com.airtribe.SimpleCloudStorage.enums;
+
+public enum ProcessingJobStatus {
+    PENDING,    // Waiting for a worker (or for its next retry)
+    RUNNING,    // Claimed by a worker
+    DONE,       // All stages ran; the file status reflects the outcome
+    FAILED      // Gave up after the maximum number of attempts
+}
@@ -0,0 +1,34 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.Blob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BlobRepository extends JpaRepository<Blob, Long> {
+
+    // Row lock so concurrent uploads and deletes of the same content see a consistent ref count
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Blob b WHERE b.contentHash = :contentHash")
+    Optional<Blob> findByContentHashForUpdate(@Param("contentHash") String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Blob b WHERE b.id = :id")
+    Optional<Blob> findByIdForUpdate(@Param("id") Long id);
+
+    // Two uploads of new identical content may race; the loser simply finds the winner's row
+    @Modifying
+    @Query(value = "INSERT INTO content_blob (content_hash, s3_key, size, content_encoding, stored_size, ref_count, created_at) " +
+            "VALUES (:contentHash, :s3Key, :size, :contentEncoding, :storedSize, 0, now()) ON CONFLICT (content_hash) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash,
+                       @Param("s3Key") String s3Key,
+                       @Param("size") long size,
+                       @Param("contentEncoding") String contentEncoding,
+                       @Param("storedSize") long storedSize);
+}
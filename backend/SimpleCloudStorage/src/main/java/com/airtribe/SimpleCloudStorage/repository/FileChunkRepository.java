@@ -0,0 +1,15 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.FileChunk;
+import com.airtribe.SimpleCloudStorage.entity.FileVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface FileChunkRepository extends JpaRepository<FileChunk, Long> {
+
+    @Query("SELECT c FROM FileChunk c JOIN FETCH c.blob WHERE c.version = :version ORDER BY c.chunkIndex")
+    List<FileChunk> findManifest(@Param("version") FileVersion version);
+}
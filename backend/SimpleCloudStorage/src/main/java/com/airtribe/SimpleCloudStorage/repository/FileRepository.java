@@ -1,38 +1,48 @@
 package com.airtribe.SimpleCloudStorage.repository;
 
 
+import com.airtribe.SimpleCloudStorage.dto.DownloadMetadata;
 import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileRepository extends JpaRepository<File,Integer> {
+public interface FileRepository extends JpaRepository<File,Integer>, FileRepositoryCustom {
     Optional<File> findById(int file_id);
 
 
 
 
-    @Query("SELECT f FROM File f " +
-            "WHERE f.userId = :userId OR " +
-            "f.isPublic = true OR " +
-            "EXISTS (SELECT 1 FROM FilePermission fp WHERE fp.file = f AND fp.userId = :userId)")
-    List<File> findAccessibleFiles(@Param("userId") int userId);
+    @Query("SELECT f FROM File f WHERE f.folder.folder_id IN :folderIds ORDER BY f.fileName")
+    List<File> findByFolderIds(@Param("folderIds") Collection<Integer> folderIds);
 
-    @Query("SELECT f FROM File f WHERE f.userId = :userId AND " +
-            "(LOWER(f.fileName) LIKE LOWER(CONCAT('%', :query, '%')))")
-    List<File> searchByName(@Param("userId") int userId, @Param("query") String query);
+    // Everything a download needs, plus the caller's read access, in a single round trip
+    @Query("SELECT new com.airtribe.SimpleCloudStorage.dto.DownloadMetadata(" +
+            "f.file_id, f.userId, f.fileName, f.fileType, f.fileSize, f.fileHash, f.s3_key, f.status, f.chunked, " +
+            "COALESCE(f.updated_at, f.created_at), b.s3Key, b.size, b.contentEncoding, " +
+            "CASE WHEN f.userId = :userId OR f.isPublic = true OR EXISTS (SELECT 1 FROM FilePermission fp " +
+            "WHERE fp.file = f AND fp.userId = :userId AND fp.type = com.airtribe.SimpleCloudStorage.enums.PermissionType.READ) " +
+            "THEN true ELSE false END) " +
+            "FROM File f LEFT JOIN f.blob b WHERE f.file_id = :fileId")
+    Optional<DownloadMetadata> findDownloadMetadata(@Param("fileId") int fileId, @Param("userId") int userId);
 
-    @Query("SELECT f FROM File f JOIN f.tags t WHERE f.userId = :userId AND " +
-            "(LOWER(f.fileName) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(t.name) = LOWER(:tag))")
-    List<File> searchByNameOrTag(@Param("userId") int userId,
-                                 @Param("query") String query,
-                                 @Param("tag") String tag);
+    // Source of a user's autocomplete entries (see AutocompleteIndex), oldest file first
+    @Query("SELECT f.fileName FROM File f WHERE f.userId = :userId ORDER BY f.created_at, f.file_id")
+    List<String> findFileNamesByUserId(@Param("userId") int userId);
 
+    @Query("SELECT t.name FROM File f JOIN f.tags t WHERE f.userId = :userId ORDER BY f.created_at, f.file_id")
+    List<String> findTagNamesByUserId(@Param("userId") int userId);
 
-    Optional<File> findByFileHash(String fileHash);
+    Optional<File> findFirstByFileHash(String fileHash);
+
+    boolean existsByFileHash(String fileHash);
+
+    List<File> findByFileHashAndFileSizeAndStatus(String fileHash, long fileSize, FileStatus status);
 }
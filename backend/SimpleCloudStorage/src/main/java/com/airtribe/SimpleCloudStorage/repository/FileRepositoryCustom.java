@@ -0,0 +1,29 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
+import com.airtribe.SimpleCloudStorage.util.FileCursor;
+
+import java.util.List;
+
+/**
+ * Keyset-paged listings. Each page continues strictly after {@code after} (null for the first
+ * page) in the given order, so its cost does not depend on how far into the listing it is.
+ * Files come back with their folder and tags loaded.
+ */
+public interface FileRepositoryCustom {
+
+    // A search result and how well it matched (0..1, higher is better)
+    record SearchHit(File file, double rank) {
+    }
+
+    // Files the user owns, has been granted, or that are public
+    List<File> findAccessiblePage(int userId, FileSortOrder sort, FileCursor after, int limit);
+
+    /**
+     * The user's own files whose name or one of whose tags contains the query or closely resembles
+     * it (trigram word similarity, so small typos still match), plus files carrying {@code tag}
+     * when one is given. Served by the trigram indexes from db/migration.
+     */
+    List<SearchHit> searchPage(int userId, String query, String tag, FileSortOrder sort, FileCursor after, int limit);
+}
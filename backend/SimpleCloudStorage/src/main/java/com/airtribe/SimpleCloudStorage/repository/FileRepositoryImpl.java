@@ -0,0 +1,159 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
+import com.airtribe.SimpleCloudStorage.util.FileCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class FileRepositoryImpl implements FileRepositoryCustom {
+
+    // Each source of accessible files, with the index that serves it (entity mappings and V4 migration)
+    private static final String OWNED = "f.user_id = :userId"; // idx_file_owner_*
+    private static final String SHARED = "f.file_id IN (SELECT p.file_id FROM file_permission p WHERE p.user_id = :userId)"; // idx_file_permission_user
+    private static final String PUBLIC = "f.is_public"; // idx_file_public_* (partial)
+
+    // Substring (LIKE) or fuzzy (<%) matches; both are answered by the gin_trgm_ops indexes
+    private static final String NAME_MATCHES = "(lower(f.file_name) LIKE :pattern ESCAPE '\\' OR :query <% lower(f.file_name))";
+    private static final String TAG_MATCHES = "(lower(t.name) LIKE :pattern ESCAPE '\\' OR :query <% lower(t.name))";
+
+    // Best of the name and the tags; word_similarity scores the best matching part of a longer name
+    private static final String RANK = "GREATEST(word_similarity(:query, lower(f.file_name)), " +
+            "COALESCE((SELECT MAX(word_similarity(:query, lower(t.name))) FROM file_tags ft " +
+            "JOIN tag t ON t.id = ft.tag_id WHERE ft.file_id = f.file_id), 0))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<File> findAccessiblePage(int userId, FileSortOrder sort, FileCursor after, int limit) {
+        String key = switch (sort) {
+            case NAME -> "file_name";
+            case CREATED -> "created_at";
+            case SIZE -> "file_size";
+            case RELEVANCE -> throw new IllegalArgumentException("Sorting by relevance needs a search query");
+        };
+        String direction = sort.isDescending() ? " DESC" : " ASC";
+
+        // Every source reads at most one page from its own index and the pages are merged; OR-ing the
+        // sources instead makes the database scan the whole table, since no single index covers all three
+        List<String> sources = new ArrayList<>();
+        for (String source : List.of(OWNED, SHARED, PUBLIC)) {
+            StringBuilder branch = new StringBuilder("(SELECT f.file_id, f.").append(key).append(" FROM file f WHERE ").append(source);
+            if (after != null) {
+                // Row-value comparison, so the database can seek straight into the (key, file_id) index
+                branch.append(" AND (f.").append(key).append(", f.file_id) ")
+                        .append(sort.isDescending() ? "<" : ">").append(" (:afterKey, :afterId)");
+            }
+            branch.append(" ORDER BY f.").append(key).append(direction).append(", f.file_id").append(direction)
+                    .append(" LIMIT :limit)");
+            sources.add(branch.toString());
+        }
+        // UNION drops files reached through more than one source, e.g. an own file that is also public
+        String sql = "SELECT file_id FROM (" + String.join(" UNION ", sources) + ") accessible" +
+                " ORDER BY " + key + direction + ", file_id" + direction + " LIMIT :limit";
+
+        Query page = entityManager.createNativeQuery(sql)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit);
+        if (after != null) {
+            page.setParameter("afterKey", after.key());
+            page.setParameter("afterId", after.fileId());
+        }
+        List<Number> ids = page.getResultList();
+        Map<Integer, File> files = load(ids.stream().map(Number::intValue).toList());
+
+        List<File> ordered = new ArrayList<>(ids.size());
+        for (Number id : ids) {
+            File file = files.get(id.intValue());
+            if (file != null) { // deleted in between
+                ordered.add(file);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SearchHit> searchPage(int userId, String query, String tag, FileSortOrder sort, FileCursor after, int limit) {
+        String key = switch (sort) {
+            case NAME -> "file_name";
+            case CREATED -> "created_at";
+            case SIZE -> "file_size";
+            case RELEVANCE -> "rank";
+        };
+        String direction = sort.isDescending() ? " DESC" : " ASC";
+        boolean byTag = tag != null && !tag.isBlank();
+
+        // Candidates come from the name index and the tag index separately, so neither side scans
+        StringBuilder sql = new StringBuilder("WITH candidates AS (")
+                .append("SELECT f.file_id FROM file f WHERE f.user_id = :userId AND ").append(NAME_MATCHES)
+                .append(" UNION SELECT ft.file_id FROM tag t JOIN file_tags ft ON ft.tag_id = t.id ")
+                .append("JOIN file f ON f.file_id = ft.file_id WHERE f.user_id = :userId AND (").append(TAG_MATCHES);
+        if (byTag) {
+            sql.append(" OR lower(t.name) = lower(:tag)");
+        }
+        sql.append(")) SELECT file_id, rank FROM (SELECT f.file_id, f.file_name, f.created_at, f.file_size, ")
+                .append(RANK).append(" AS rank FROM file f JOIN candidates c ON c.file_id = f.file_id) hits");
+        if (after != null) {
+            sql.append(" WHERE (").append(key).append(", file_id) ")
+                    .append(sort.isDescending() ? "<" : ">").append(" (:afterKey, :afterId)");
+        }
+        sql.append(" ORDER BY ").append(key).append(direction).append(", file_id").append(direction)
+                .append(" LIMIT :limit");
+
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        Query search = entityManager.createNativeQuery(sql.toString())
+                .setParameter("userId", userId)
+                .setParameter("query", normalized)
+                .setParameter("pattern", "%" + escapeLike(normalized) + "%")
+                .setParameter("limit", limit);
+        if (byTag) {
+            search.setParameter("tag", tag);
+        }
+        if (after != null) {
+            search.setParameter("afterKey", after.key());
+            search.setParameter("afterId", after.fileId());
+        }
+        List<Object[]> rows = search.getResultList();
+
+        // Entities for the page in one query, then put back in ranked order
+        List<Integer> ids = new ArrayList<>(rows.size());
+        rows.forEach(row -> ids.add(((Number) row[0]).intValue()));
+        Map<Integer, File> files = load(ids);
+
+        List<SearchHit> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            File file = files.get(((Number) row[0]).intValue());
+            if (file != null) { // deleted in between
+                hits.add(new SearchHit(file, ((Number) row[1]).doubleValue()));
+            }
+        }
+        return hits;
+    }
+
+    // Files of a page with folder and tags, keyed by id; callers restore the page order
+    private Map<Integer, File> load(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return entityManager.createQuery(
+                        "SELECT f FROM File f LEFT JOIN FETCH f.folder LEFT JOIN FETCH f.tags WHERE f.file_id IN :ids", File.class)
+                .setParameter("ids", ids)
+                .getResultList().stream()
+                .collect(Collectors.toMap(File::getFile_id, Function.identity(), (a, b) -> a));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,17 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.FileVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FileVersionRepository extends JpaRepository<FileVersion, Long> {
+    List<FileVersion> findByFileOrderByVersionIdDesc(File file);
+
+    Optional<FileVersion> findByVersionIdAndFile(Long versionId, File file);
+
+    // The newest version is always the current content
+    Optional<FileVersion> findFirstByFileOrderByVersionIdDesc(File file);
+}
@@ -2,6 +2,17 @@ package com.airtribe.SimpleCloudStorage.repository;
 
 import com.airtribe.SimpleCloudStorage.entity.Folder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface FolderRepository extends JpaRepository<Folder,Integer> {
+
+    // The folder and everything below it; UNION rather than UNION ALL so a parent cycle cannot loop forever
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+            "SELECT * FROM folder WHERE folder_id = :folderId " +
+            "UNION SELECT f.* FROM folder f JOIN subtree s ON f.parent_id = s.folder_id) " +
+            "SELECT * FROM subtree", nativeQuery = true)
+    List<Folder> findSubtree(@Param("folderId") int folderId);
 }
@@ -0,0 +1,24 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.ProcessingJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    // SKIP LOCKED lets several application instances poll the same queue without blocking each other
+    @Query(value = "SELECT * FROM processing_job WHERE status = 'PENDING' AND next_attempt_at <= now() " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> claimDue(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = com.airtribe.SimpleCloudStorage.enums.ProcessingJobStatus.PENDING, " +
+            "j.lockedAt = null WHERE j.status = com.airtribe.SimpleCloudStorage.enums.ProcessingJobStatus.RUNNING " +
+            "AND j.lockedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") Date staleBefore);
+}
@@ -0,0 +1,11 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.UploadPart;
+import com.airtribe.SimpleCloudStorage.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+    Optional<UploadPart> findBySessionAndPartNumber(UploadSession session, int partNumber);
+}
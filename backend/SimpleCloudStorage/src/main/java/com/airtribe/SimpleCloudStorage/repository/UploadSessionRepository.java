@@ -0,0 +1,16 @@
+package com.airtribe.SimpleCloudStorage.repository;
+
+import com.airtribe.SimpleCloudStorage.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Sessions whose last chunk (or creation) is older than the cutoff
+    @Query("SELECT s.sessionId FROM UploadSession s WHERE s.updated_at < :cutoff")
+    List<String> findIdleSessionIds(@Param("cutoff") Date cutoff);
+}
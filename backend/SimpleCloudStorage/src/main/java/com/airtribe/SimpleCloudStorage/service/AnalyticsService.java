@@ -4,6 +4,7 @@ import com.airtribe.SimpleCloudStorage.repository.AnalyticsEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.List;
@@ -13,6 +14,7 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true) // Aggregations only; served by a read replica when one is configured
 public class AnalyticsService {
 
     private final AnalyticsEventRepository analyticsEventRepository;
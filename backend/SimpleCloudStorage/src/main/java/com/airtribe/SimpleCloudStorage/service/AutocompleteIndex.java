@@ -0,0 +1,272 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.dto.Suggestion;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Prefix suggestions over the names of a user's files and their tags, answered from memory.
+ * <p>
+ * A user's names are loaded on their first lookup and kept as sorted maps keyed by the lower-cased
+ * text, so a prefix is a range scan. Names are indexed from the start and from every word
+ * ("q3 report.pdf" is found by "rep" too). Matches at the start of a name come before word matches;
+ * within each group the names carried by the most files come first, then the most recently added.
+ * Uploads, renames and deletes on this instance update the index once their transaction commits;
+ * changes made elsewhere show up when the entry is reloaded after
+ * {@code file.autocomplete.refresh-seconds}.
+ */
+@Slf4j
+@Service
+public class AutocompleteIndex {
+
+    public static final String FILE = "file";
+    public static final String TAG = "tag";
+
+    // Matches ranked per lookup; beyond this a very short prefix is ranked among the first names only
+    private static final int MAX_CANDIDATES = 500;
+
+    @Value("${file.autocomplete.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${file.autocomplete.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    private final FileRepository fileRepository;
+
+    // Least recently used users are dropped first
+    private final LinkedHashMap<Integer, UserIndex> users = new LinkedHashMap<>(256, 0.75f, true);
+    // Guarded by users; kept while a user's index is cached or being loaded
+    private final Map<Integer, Generation> generations = new HashMap<>();
+
+    public AutocompleteIndex(FileRepository fileRepository) {
+        this.fileRepository = fileRepository;
+    }
+
+    public List<Suggestion> suggest(int userId, String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return index(userId).lookup(normalized, limit);
+    }
+
+    public void fileAdded(int userId, String fileName) {
+        afterCommit(userId, index -> index.add(FILE, fileName));
+    }
+
+    public void fileRemoved(int userId, String fileName, Collection<String> tagNames) {
+        afterCommit(userId, index -> {
+            index.remove(FILE, fileName);
+            tagNames.forEach(name -> index.remove(TAG, name));
+        });
+    }
+
+    public void fileRenamed(int userId, String oldName, String newName) {
+        if (Objects.equals(oldName, newName)) {
+            return;
+        }
+        afterCommit(userId, index -> {
+            index.remove(FILE, oldName);
+            index.add(FILE, newName);
+        });
+    }
+
+    private UserIndex index(int userId) {
+        Generation generation;
+        long changesAtStart;
+        synchronized (users) {
+            UserIndex index = users.get(userId);
+            if (index != null && System.nanoTime() - index.loadedAt < refreshSeconds * 1_000_000_000L) {
+                return index;
+            }
+            generation = generations.computeIfAbsent(userId, id -> new Generation());
+            generation.loads++;
+            changesAtStart = generation.changes;
+        }
+
+        // Loaded outside the lock so one user's queries do not hold up everyone else's lookups
+        UserIndex index = new UserIndex(System.nanoTime());
+        try {
+            fileRepository.findFileNamesByUserId(userId).forEach(name -> index.add(FILE, name));
+            fileRepository.findTagNamesByUserId(userId).forEach(name -> index.add(TAG, name));
+        } finally {
+            synchronized (users) {
+                generation.loads--;
+                // A change committed while loading may be missing from what was read, so the result is
+                // only kept if none arrived; concurrent loads that all saw the same state may each be kept
+                if (generation.changes == changesAtStart) {
+                    users.put(userId, index);
+                    if (users.size() > maxUsers) {
+                        Iterator<Integer> eldest = users.keySet().iterator();
+                        Integer evicted = eldest.next();
+                        eldest.remove();
+                        dropGeneration(evicted);
+                    }
+                } else if (!users.containsKey(userId)) {
+                    dropGeneration(userId);
+                }
+            }
+        }
+        log.debug("Loaded autocomplete index for user {}: {} entries", userId, index.size());
+        return index;
+    }
+
+    // Caller holds the users lock
+    private void dropGeneration(int userId) {
+        Generation generation = generations.get(userId);
+        if (generation != null && generation.loads == 0) {
+            generations.remove(userId);
+        }
+    }
+
+    private void afterCommit(int userId, Consumer<UserIndex> change) {
+        Runnable apply = () -> {
+            UserIndex index;
+            synchronized (users) {
+                index = users.get(userId);
+                Generation generation = generations.get(userId);
+                if (generation != null) {
+                    generation.changes++;
+                }
+            }
+            if (index != null) {
+                change.accept(index);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Changes seen for a user, and loads of their index in progress
+    private static final class Generation {
+        long changes;
+        int loads;
+    }
+
+    private static final class Entry {
+        // Most files first, then most recently added, then A to Z
+        static final Comparator<Entry> BY_USE = Comparator.<Entry>comparingInt(entry -> entry.count).reversed()
+                .thenComparing(Comparator.<Entry>comparingLong(entry -> entry.lastAdded).reversed())
+                .thenComparing(entry -> entry.value, String.CASE_INSENSITIVE_ORDER);
+
+        final String type;
+        final String value;
+        int count;
+        long lastAdded;
+
+        Entry(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    private static final class UserIndex {
+        final long loadedAt;
+        // Order of additions; names are loaded oldest file first, so a higher value is more recent
+        long additions;
+        // Keys are "<text from the match point>\0<type>\0<original name>"
+        final TreeMap<String, Entry> starts = new TreeMap<>();
+        final TreeMap<String, Entry> words = new TreeMap<>();
+
+        UserIndex(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized void add(String type, String name) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            String normalized = normalize(name);
+            Entry entry = starts.computeIfAbsent(key(normalized, type, name), k -> new Entry(type, name));
+            entry.count++;
+            entry.lastAdded = ++additions;
+            if (entry.count == 1) {
+                for (int i : wordStarts(normalized)) {
+                    words.put(key(normalized.substring(i), type, name), entry);
+                }
+            }
+        }
+
+        synchronized void remove(String type, String name) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            String normalized = normalize(name);
+            String key = key(normalized, type, name);
+            Entry entry = starts.get(key);
+            if (entry == null || --entry.count > 0) {
+                return;
+            }
+            starts.remove(key);
+            for (int i : wordStarts(normalized)) {
+                words.remove(key(normalized.substring(i), type, name));
+            }
+        }
+
+        synchronized List<Suggestion> lookup(String prefix, int limit) {
+            Set<Entry> seen = new HashSet<>();
+            List<Entry> ranked = candidates(starts, prefix, seen);
+            if (ranked.size() < limit) {
+                ranked.addAll(candidates(words, prefix, seen));
+            }
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Entry entry : ranked.subList(0, Math.min(limit, ranked.size()))) {
+                suggestions.add(new Suggestion(entry.value, entry.type, entry.count));
+            }
+            return suggestions;
+        }
+
+        synchronized int size() {
+            return starts.size();
+        }
+
+        // Matches not already in seen, best first
+        private static List<Entry> candidates(TreeMap<String, Entry> map, String prefix, Set<Entry> seen) {
+            List<Entry> matches = new ArrayList<>();
+            for (Entry entry : map.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                if (matches.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+                if (seen.add(entry)) {
+                    matches.add(entry);
+                }
+            }
+            matches.sort(Entry.BY_USE);
+            return matches;
+        }
+
+        private static String key(String text, String type, String name) {
+            return text + '\0' + type + '\0' + name;
+        }
+
+        // Positions after the first where a new word begins, e.g. "q3 report.pdf" -> report, pdf
+        private static List<Integer> wordStarts(String normalized) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 1; i < normalized.length(); i++) {
+                if (!Character.isLetterOrDigit(normalized.charAt(i - 1)) && Character.isLetterOrDigit(normalized.charAt(i))) {
+                    starts.add(i);
+                }
+            }
+            return starts;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.entity.Blob;
+import com.airtribe.SimpleCloudStorage.exceptionHandler.FileStorageException;
+import com.airtribe.SimpleCloudStorage.repository.BlobRepository;
+import com.airtribe.SimpleCloudStorage.util.S3ContentStream;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Content-addressed blob store. Each distinct content hash is stored once in S3 under an opaque
+ * key and reference counted; storing known content is just a ref count increment, and the S3
+ * object is only deleted when the last reference goes away.
+ */
+@Slf4j
+@Service
+@Transactional
+public class BlobStorageService {
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    private final AmazonS3 s3Client;
+    private final BlobRepository blobRepository;
+
+    public BlobStorageService(AmazonS3 s3Client, BlobRepository blobRepository) {
+        this.s3Client = s3Client;
+        this.blobRepository = blobRepository;
+    }
+
+    // Keys are not derived from the hash so content can be streamed before the hash is known
+    public String newBlobKey() {
+        return "blobs/" + UUID.randomUUID();
+    }
+
+    /**
+     * Takes a reference on already stored content, without touching S3.
+     */
+    public Optional<Blob> acquire(String contentHash, long size) {
+        return blobRepository.findByContentHashForUpdate(contentHash)
+                .filter(blob -> blob.getSize() == size)
+                .map(blob -> {
+                    blob.setRefCount(blob.getRefCount() + 1);
+                    log.info("Deduplication: content {} now has {} references.", contentHash, blob.getRefCount());
+                    return blobRepository.save(blob);
+                });
+    }
+
+    /**
+     * Registers an object that was just written to {@code stagedKey} and takes a reference on it.
+     * If the same content is already stored the staged copy is deleted and the existing blob is
+     * used instead.
+     */
+    public Blob adopt(String contentHash, long size, String stagedKey) {
+        return adopt(contentHash, size, stagedKey, null, size);
+    }
+
+    // Same as above for an object stored with a content encoding (e.g. gzip); the hash is of the original bytes
+    public Blob adopt(String contentHash, long size, String stagedKey, String contentEncoding, long storedSize) {
+        blobRepository.insertIfAbsent(contentHash, stagedKey, size, contentEncoding, storedSize);
+        Blob blob = blobRepository.findByContentHashForUpdate(contentHash)
+                .orElseThrow(() -> new FileStorageException("Blob row missing for content " + contentHash));
+
+        if (!blob.getS3Key().equals(stagedKey)) {
+            log.info("Deduplication: content {} already stored at '{}', discarding staged copy '{}'.",
+                    contentHash, blob.getS3Key(), stagedKey);
+            deleteObjectQuietly(stagedKey);
+        } else {
+            // A new object: remove it again if the surrounding transaction does not commit
+            afterRollback(() -> deleteObjectQuietly(stagedKey));
+        }
+
+        blob.setRefCount(blob.getRefCount() + 1);
+        return blobRepository.save(blob);
+    }
+
+    /**
+     * Opens a blob's content, decoding it if it was stored compressed.
+     */
+    public InputStream open(Blob blob) {
+        InputStream stored = new S3ContentStream(s3Client.getObject(bucket, blob.getS3Key()).getObjectContent());
+        if (!blob.isCompressed()) {
+            return stored;
+        }
+        try {
+            // gzip is the only encoding written (see CompressionPolicy)
+            return new GZIPInputStream(stored, 65536);
+        } catch (IOException e) {
+            closeQuietly(stored);
+            throw new FileStorageException("Failed to open compressed blob " + blob.getS3Key(), e);
+        }
+    }
+
+    private void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Ignoring error while closing stream: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads an object back from S3 and returns its SHA-256 in the same encoding used for uploads.
+     * Used when the bytes arrived in pieces and the server never saw the whole stream.
+     */
+    public String hashObject(String s3Key) {
+        try (S3Object object = s3Client.getObject(bucket, s3Key);
+             InputStream content = object.getObjectContent()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[65536];
+            int bytesRead;
+            while ((bytesRead = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new FileStorageException("Failed to hash S3 object " + s3Key, e);
+        }
+    }
+
+    public void deleteStaged(String s3Key) {
+        deleteObjectQuietly(s3Key);
+    }
+
+    public Blob retain(Blob blob) {
+        Blob locked = lock(blob);
+        locked.setRefCount(locked.getRefCount() + 1);
+        return blobRepository.save(locked);
+    }
+
+    /**
+     * Drops one reference. The row and the S3 object are removed once nothing refers to the
+     * content; the S3 delete waits for the commit so a rollback never loses data.
+     */
+    public void release(Blob blob) {
+        Blob locked = lock(blob);
+        int remaining = locked.getRefCount() - 1;
+        if (remaining > 0) {
+            locked.setRefCount(remaining);
+            blobRepository.save(locked);
+            return;
+        }
+
+        String s3Key = locked.getS3Key();
+        blobRepository.delete(locked);
+        afterCommit(() -> deleteObjectQuietly(s3Key));
+        log.info("Blob {} has no references left, deleting S3 object '{}'.", locked.getContentHash(), s3Key);
+    }
+
+    private Blob lock(Blob blob) {
+        return blobRepository.findByIdForUpdate(blob.getId())
+                .orElseThrow(() -> new FileStorageException("Blob not found: " + blob.getId()));
+    }
+
+    private void deleteObjectQuietly(String s3Key) {
+        try {
+            s3Client.deleteObject(bucket, s3Key);
+        } catch (AmazonServiceException e) {
+            log.error("Failed to delete S3 object '{}': {}", s3Key, e.getMessage(), e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,269 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.entity.Blob;
+import com.airtribe.SimpleCloudStorage.entity.FileChunk;
+import com.airtribe.SimpleCloudStorage.entity.FileVersion;
+import com.airtribe.SimpleCloudStorage.exceptionHandler.FileStorageException;
+import com.airtribe.SimpleCloudStorage.repository.FileChunkRepository;
+import com.airtribe.SimpleCloudStorage.util.FastCdcChunker;
+import com.airtribe.SimpleCloudStorage.util.LazyConcatInputStream;
+import com.airtribe.SimpleCloudStorage.util.ParallelRangeInputStream;
+import com.airtribe.SimpleCloudStorage.util.S3ContentStream;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Optional storage mode for large files: content is split with content-defined chunking and
+ * every chunk is stored as a blob, so a new version only uploads and stores the chunks that
+ * changed. A version is then an ordered manifest of chunk blobs.
+ */
+@Slf4j
+@Service
+@Transactional
+public class ChunkedStorageService {
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${file.storage.chunking.enabled:false}")
+    private boolean enabled;
+
+    // Smaller files are stored as a single blob
+    @Value("${file.storage.chunking.min-file-size:16777216}")
+    private long minFileSize;
+
+    @Value("${file.storage.chunking.min-chunk-size:524288}")
+    private int minChunkSize;
+
+    @Value("${file.storage.chunking.avg-chunk-size:2097152}")
+    private int avgChunkSize;
+
+    @Value("${file.storage.chunking.max-chunk-size:8388608}")
+    private int maxChunkSize;
+
+    @Value("${file.upload.multipart.concurrency:4}")
+    private int concurrency;
+
+    private final AmazonS3 s3Client;
+    private final BlobStorageService blobStorageService;
+    private final FileChunkRepository fileChunkRepository;
+    private final ThreadPoolTaskExecutor transferExecutor;
+
+    public ChunkedStorageService(AmazonS3 s3Client, BlobStorageService blobStorageService,
+                                 FileChunkRepository fileChunkRepository,
+                                 @Qualifier("s3TransferExecutor") ThreadPoolTaskExecutor transferExecutor) {
+        this.s3Client = s3Client;
+        this.blobStorageService = blobStorageService;
+        this.fileChunkRepository = fileChunkRepository;
+        this.transferExecutor = transferExecutor;
+    }
+
+    public record StoredChunk(Blob blob, long offset, long length) {
+    }
+
+    public record ChunkedContent(String contentHash, long size, List<StoredChunk> chunks) {
+    }
+
+    public boolean shouldChunk(long size) {
+        return enabled && size >= minFileSize;
+    }
+
+    /**
+     * Chunks and stores the stream. Chunks that are already stored only gain a reference; new
+     * ones are uploaded in parallel with at most {@code concurrency} chunk buffers in flight.
+     */
+    public ChunkedContent store(InputStream source) throws IOException, NoSuchAlgorithmException {
+        MessageDigest fileDigest = MessageDigest.getInstance("SHA-256");
+        FastCdcChunker chunker = new FastCdcChunker(new DigestInputStream(source, fileDigest),
+                minChunkSize, avgChunkSize, maxChunkSize);
+
+        List<StoredChunk> chunks = new ArrayList<>();
+        Map<Integer, PendingChunk> pending = new LinkedHashMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        long offset = 0;
+        int reused = 0;
+
+        try {
+            byte[] chunk;
+            while ((chunk = chunker.next()) != null) {
+                String chunkHash = hash(chunk);
+                Optional<Blob> existing = blobStorageService.acquire(chunkHash, chunk.length);
+                if (existing.isPresent()) {
+                    chunks.add(new StoredChunk(existing.get(), offset, chunk.length));
+                    reused++;
+                } else {
+                    String key = blobStorageService.newBlobKey();
+                    pending.put(chunks.size(), new PendingChunk(chunkHash, key, offset, chunk.length, submitPut(key, chunk, permits)));
+                    chunks.add(null); // filled in once the upload finishes
+                }
+                offset += chunk.length;
+            }
+
+            // Blob rows are written on this thread, which owns the transaction
+            for (Map.Entry<Integer, PendingChunk> entry : pending.entrySet()) {
+                PendingChunk upload = entry.getValue();
+                upload.future().get();
+                Blob blob = blobStorageService.adopt(upload.hash(), upload.length(), upload.key());
+                chunks.set(entry.getKey(), new StoredChunk(blob, upload.offset(), upload.length()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cleanUp(pending);
+            throw new FileStorageException("Chunked upload interrupted", e);
+        } catch (ExecutionException e) {
+            cleanUp(pending);
+            throw new FileStorageException("Chunk upload failed", e.getCause());
+        } catch (IOException | RuntimeException e) {
+            cleanUp(pending);
+            throw e;
+        }
+
+        log.info("Stored {} bytes as {} chunks ({} already stored, {} uploaded).", offset, chunks.size(), reused, pending.size());
+        String contentHash = Base64.getUrlEncoder().withoutPadding().encodeToString(fileDigest.digest());
+        return new ChunkedContent(contentHash, offset, chunks);
+    }
+
+    public void saveManifest(FileVersion version, List<StoredChunk> chunks) {
+        List<FileChunk> rows = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            StoredChunk chunk = chunks.get(i);
+            rows.add(FileChunk.builder()
+                    .version(version)
+                    .chunkIndex(i)
+                    .blob(chunk.blob())
+                    .chunkOffset(chunk.offset())
+                    .chunkLength(chunk.length())
+                    .build());
+        }
+        fileChunkRepository.saveAll(rows);
+    }
+
+    // Reuses another version's chunks (restore, instant upload), taking a reference on each
+    public List<StoredChunk> copyManifest(FileVersion version) {
+        List<StoredChunk> chunks = new ArrayList<>();
+        for (FileChunk chunk : fileChunkRepository.findManifest(version)) {
+            chunks.add(new StoredChunk(blobStorageService.retain(chunk.getBlob()), chunk.getChunkOffset(), chunk.getChunkLength()));
+        }
+        return chunks;
+    }
+
+    public void releaseManifest(FileVersion version) {
+        List<FileChunk> manifest = fileChunkRepository.findManifest(version);
+        manifest.forEach(chunk -> blobStorageService.release(chunk.getBlob()));
+        fileChunkRepository.deleteAll(manifest);
+    }
+
+    public List<FileChunk> getManifest(FileVersion version) {
+        return fileChunkRepository.findManifest(version);
+    }
+
+    /**
+     * Reassembles a version by streaming its chunks in order; each chunk object is only opened
+     * when the previous one has been fully read.
+     */
+    public InputStream open(FileVersion version) {
+        Iterator<Supplier<InputStream>> chunks = fileChunkRepository.findManifest(version).stream()
+                .map(chunk -> (Supplier<InputStream>) () -> openChunk(chunk.getBlob()))
+                .iterator();
+        return new LazyConcatInputStream(chunks);
+    }
+
+    /**
+     * Streams bytes {@code start}..{@code end} (inclusive) of a version, fetching only the parts of
+     * the chunks that overlap the range.
+     */
+    public InputStream openRange(FileVersion version, long start, long end) {
+        return rangeReader(version).open(start, end);
+    }
+
+    /**
+     * Loads the manifest once and returns a reader for arbitrary ranges of the version, so many
+     * ranges (possibly on other threads) can be read without going back to the database.
+     */
+    public ChunkRangeReader rangeReader(FileVersion version) {
+        return new ChunkRangeReader(fileChunkRepository.findManifest(version));
+    }
+
+    public class ChunkRangeReader implements ParallelRangeInputStream.RangeFetcher {
+
+        private final List<FileChunk> manifest;
+
+        private ChunkRangeReader(List<FileChunk> manifest) {
+            this.manifest = manifest;
+        }
+
+        @Override
+        public InputStream open(long start, long end) {
+            List<Supplier<InputStream>> parts = new ArrayList<>();
+            for (FileChunk chunk : manifest) {
+                long chunkEnd = chunk.getChunkOffset() + chunk.getChunkLength() - 1;
+                if (chunkEnd < start || chunk.getChunkOffset() > end) {
+                    continue;
+                }
+                long from = Math.max(start, chunk.getChunkOffset()) - chunk.getChunkOffset();
+                long to = Math.min(end, chunkEnd) - chunk.getChunkOffset();
+                String key = chunk.getBlob().getS3Key();
+                parts.add(() -> new S3ContentStream(s3Client.getObject(new GetObjectRequest(bucket, key).withRange(from, to)).getObjectContent()));
+            }
+            return new LazyConcatInputStream(parts.iterator());
+        }
+    }
+
+    private InputStream openChunk(Blob blob) {
+        return new S3ContentStream(s3Client.getObject(bucket, blob.getS3Key()).getObjectContent());
+    }
+
+    private record PendingChunk(String hash, String key, long offset, long length, Future<?> future) {
+    }
+
+    private Future<?> submitPut(String key, byte[] chunk, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            return transferExecutor.submit(() -> {
+                try {
+                    ObjectMetadata metadata = new ObjectMetadata();
+                    metadata.setContentLength(chunk.length);
+                    metadata.setContentType("application/octet-stream");
+                    s3Client.putObject(new PutObjectRequest(bucket, key, new ByteArrayInputStream(chunk), metadata));
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void cleanUp(Map<Integer, PendingChunk> pending) {
+        for (PendingChunk upload : pending.values()) {
+            upload.future().cancel(true);
+            blobStorageService.deleteStaged(upload.key());
+        }
+    }
+
+    private String hash(byte[] chunk) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(chunk);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
@@ -0,0 +1,54 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides which uploads are stored gzip-compressed. Text-like types shrink several times over;
+ * media and archives are already compressed and are stored as-is.
+ */
+@Component
+public class CompressionPolicy {
+
+    public static final String GZIP = "gzip";
+
+    @Value("${file.storage.compression.enabled:true}")
+    private boolean enabled;
+
+    // Below this the gzip framing and the CPU are not worth it
+    @Value("${file.storage.compression.min-size:1024}")
+    private long minSize;
+
+    @Value("${file.storage.compression.level:6}")
+    private int level;
+
+    // Exact types or "type/*" wildcards
+    @Value("${file.storage.compression.types:text/*,application/json,application/xml,application/javascript,application/x-ndjson,application/yaml,image/svg+xml}")
+    private List<String> types;
+
+    public boolean shouldCompress(String contentType, long size) {
+        return enabled && size >= minSize && isCompressible(contentType);
+    }
+
+    // Content type alone, for callers that deflate on their own terms (ZIP entries)
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        for (String pattern : types) {
+            String candidate = pattern.trim().toLowerCase(Locale.ROOT);
+            if (candidate.endsWith("/*") ? type.startsWith(candidate.substring(0, candidate.length() - 1)) : type.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,18 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Issues short-lived URLs that let a client fetch a stored object without going through the
+ * application. {@code file.download.signer} selects S3 presigned URLs ({@code s3}, the default)
+ * or a local stand-in ({@code local}) that serves the bytes itself.
+ */
+public interface DownloadUrlSigner {
+
+    record SignedUrl(String url, Instant expiresAt) {
+    }
+
+    // Response header values are fixed into the signature, so a client cannot change them
+    SignedUrl sign(String s3Key, String contentDisposition, String contentType, String contentEncoding, Duration ttl);
+}
@@ -0,0 +1,91 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An opened download: the content stream plus the headers that have to be sent before it.
+ * Content is copied through a fixed-size buffer, so heap use does not depend on the file size.
+ */
+public class FileDownload implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream content;
+    private final FileChannel channel;
+    private final long position;
+    private final long contentLength;
+    private final String contentEncoding;
+
+    public FileDownload(InputStream content, long contentLength, String contentEncoding) {
+        this.content = content;
+        this.channel = null;
+        this.position = 0;
+        this.contentLength = contentLength;
+        this.contentEncoding = contentEncoding;
+    }
+
+    // Content from a local file, read by position so a range needs no seek on a shared stream
+    public FileDownload(FileChannel channel, long position, long contentLength) {
+        this.content = null;
+        this.channel = channel;
+        this.position = position;
+        this.contentLength = contentLength;
+        this.contentEncoding = null;
+    }
+
+    // Length of the bytes sent, i.e. of the encoded content when the encoding is passed through
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    // Content-Encoding of the bytes sent; null when they are the original content
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public long transferTo(OutputStream out) throws IOException {
+        if (channel != null) {
+            return transferFromChannel(out);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = content.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            total += n;
+        }
+        out.flush();
+        return total;
+    }
+
+    private long transferFromChannel(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long total = 0;
+        while (total < contentLength) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, contentLength - total));
+            int n = channel.read(buffer, position + total);
+            if (n <= 0) {
+                throw new EOFException("Cached content ended after " + total + " of " + contentLength + " bytes");
+            }
+            out.write(buffer.array(), 0, n);
+            total += n;
+        }
+        out.flush();
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        } else {
+            content.close();
+        }
+    }
+}
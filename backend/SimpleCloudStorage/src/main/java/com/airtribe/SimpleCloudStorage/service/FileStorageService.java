@@ -1,44 +1,72 @@
 package com.airtribe.SimpleCloudStorage.service;
 
+import com.airtribe.SimpleCloudStorage.dto.BatchUploadResult;
+import com.airtribe.SimpleCloudStorage.dto.DownloadMetadata;
+import com.airtribe.SimpleCloudStorage.dto.ErrorResponse;
+import com.airtribe.SimpleCloudStorage.dto.FilePage;
 import com.airtribe.SimpleCloudStorage.dto.FileResponse;
+import com.airtribe.SimpleCloudStorage.dto.FileStatusResponse;
 import com.airtribe.SimpleCloudStorage.dto.FileVersionResponse;
+import com.airtribe.SimpleCloudStorage.dto.InstantUploadRequest;
+import com.airtribe.SimpleCloudStorage.entity.Blob;
 import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.FileVersion;
 import com.airtribe.SimpleCloudStorage.entity.Tag;
 import com.airtribe.SimpleCloudStorage.entity.Folder;
 import com.airtribe.SimpleCloudStorage.entity.Users;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
 import com.airtribe.SimpleCloudStorage.enums.FileStatus;
 import com.airtribe.SimpleCloudStorage.exceptionHandler.FileStorageException;
 import com.airtribe.SimpleCloudStorage.repository.AnalyticsEventRepository; // New Import
 import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import com.airtribe.SimpleCloudStorage.repository.FileRepositoryCustom;
+import com.airtribe.SimpleCloudStorage.repository.FileVersionRepository;
 import com.airtribe.SimpleCloudStorage.repository.FolderRepository;
+import com.airtribe.SimpleCloudStorage.service.processing.ProcessingQueue;
+import com.airtribe.SimpleCloudStorage.util.EntityTags;
+import com.airtribe.SimpleCloudStorage.util.FileCursor;
+import com.airtribe.SimpleCloudStorage.util.GzipCompressingInputStream;
+import com.airtribe.SimpleCloudStorage.util.ParallelRangeInputStream;
+import com.airtribe.SimpleCloudStorage.util.S3ContentStream;
 import com.airtribe.SimpleCloudStorage.entity.AnalyticsEvent; // New Import
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 
-import jakarta.transaction.Transactional;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.security.MessageDigest; // For hashing
 import java.security.NoSuchAlgorithmException; // For hashing
+import java.time.Duration;
 import java.time.Instant; // Use Instant for timestamps
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @Slf4j
 @Service
@@ -48,21 +76,94 @@ public class FileStorageService {
     @Value("${cloud.aws.s3.bucket}")
     private String bucket;
 
+    // Hash while the bytes flow to S3 instead of reading the upload twice
+    @Value("${file.upload.streaming-enabled:true}")
+    private boolean streamingUploadEnabled;
+
+    @Value("${file.upload.buffer-size:65536}")
+    private int uploadBufferSize;
+
+    @Value("${file.upload.instant.cross-user:false}")
+    private boolean instantUploadCrossUser;
+
+    @Value("${file.upload.batch.max-files:1000}")
+    private int batchMaxFiles;
+
+    // Parts of one batch transferred to S3 at the same time
+    @Value("${file.upload.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    @Value("${file.download.url-ttl-seconds:300}")
+    private long presignedUrlTtlSeconds;
+
+    // Larger downloads are fetched as concurrent ranged GETs instead of one S3 stream
+    @Value("${file.download.parallel.threshold:67108864}")
+    private long parallelDownloadThreshold;
+
+    @Value("${file.download.parallel.part-size:8388608}")
+    private int parallelDownloadPartSize;
+
+    // Ranges in flight per download; also bounds the memory each download holds
+    @Value("${file.download.parallel.concurrency:4}")
+    private int parallelDownloadConcurrency;
+
+    @Value("${file.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${file.listing.max-page-size:500}")
+    private int maxPageSize;
+
     private final AmazonS3 s3Client;
     private final FileRepository fileRepository;
     private final FolderRepository folderRepository;
     private final FilePermissionService filePermissionService;
     private final AnalyticsEventRepository analyticsEventRepository; // New dependency
+    private final MultipartUploadService multipartUploadService;
+    private final BlobStorageService blobStorageService;
+    private final FileVersionRepository fileVersionRepository;
+    private final ChunkedStorageService chunkedStorageService;
+    private final ThreadPoolTaskExecutor transferExecutor;
+    private final ProcessingQueue processingQueue;
+    private final CompressionPolicy compressionPolicy;
+    private final DownloadUrlSigner downloadUrlSigner;
+    private final LocalObjectCache objectCache;
+    private final SingleFlightFetcher singleFlightFetcher;
+    private final ThreadPoolTaskExecutor downloadExecutor;
+    private final AutocompleteIndex autocompleteIndex;
 
     @Autowired // Use constructor injection for all dependencies
     public FileStorageService(AmazonS3 s3Client, FileRepository fileRepository,
                               FolderRepository folderRepository, FilePermissionService filePermissionService,
-                              AnalyticsEventRepository analyticsEventRepository) {
+                              AnalyticsEventRepository analyticsEventRepository,
+                              MultipartUploadService multipartUploadService,
+                              BlobStorageService blobStorageService,
+                              FileVersionRepository fileVersionRepository,
+                              ChunkedStorageService chunkedStorageService,
+                              @Qualifier("s3TransferExecutor") ThreadPoolTaskExecutor transferExecutor,
+                              ProcessingQueue processingQueue,
+                              CompressionPolicy compressionPolicy,
+                              DownloadUrlSigner downloadUrlSigner,
+                              LocalObjectCache objectCache,
+                              SingleFlightFetcher singleFlightFetcher,
+                              @Qualifier("s3DownloadExecutor") ThreadPoolTaskExecutor downloadExecutor,
+                              AutocompleteIndex autocompleteIndex) {
         this.s3Client = s3Client;
         this.fileRepository = fileRepository;
         this.folderRepository = folderRepository;
         this.filePermissionService = filePermissionService;
         this.analyticsEventRepository = analyticsEventRepository; // Initialize new dependency
+        this.multipartUploadService = multipartUploadService;
+        this.blobStorageService = blobStorageService;
+        this.fileVersionRepository = fileVersionRepository;
+        this.chunkedStorageService = chunkedStorageService;
+        this.transferExecutor = transferExecutor;
+        this.processingQueue = processingQueue;
+        this.compressionPolicy = compressionPolicy;
+        this.downloadUrlSigner = downloadUrlSigner;
+        this.objectCache = objectCache;
+        this.singleFlightFetcher = singleFlightFetcher;
+        this.downloadExecutor = downloadExecutor;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
 
@@ -75,10 +176,166 @@ public class FileStorageService {
                 digest.update(buffer, 0, bytesRead);
             }
         }
+        return encodeHash(digest);
+    }
+
+    private String encodeHash(MessageDigest digest) {
         byte[] hashedBytes = digest.digest();
         return Base64.getUrlEncoder().withoutPadding().encodeToString(hashedBytes); // URL-safe Base64
     }
 
+    /**
+     * Streams the upload to S3 in a single pass, hashing the bytes on the way through.
+     * Large uploads go through the parallel multipart engine; heap use is bounded either way.
+     * Returns the SHA-256 of the uploaded content.
+     */
+    private String streamToS3(InputStream source, long size, String s3Key, ObjectMetadata metadata)
+            throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream hashing = new DigestInputStream(source, digest)) {
+            if (multipartUploadService.shouldUseMultipart(size)) {
+                multipartUploadService.upload(s3Key, hashing, metadata);
+            } else {
+                // The digest sits below the buffer, so if the SDK resets the stream for a retry
+                // the replayed bytes come from the buffer and are not hashed twice.
+                InputStream buffered = new BufferedInputStream(hashing, uploadBufferSize);
+                PutObjectRequest request = new PutObjectRequest(bucket, s3Key, buffered, metadata);
+                request.getRequestClientOptions().setReadLimit(uploadBufferSize + 1);
+                s3Client.putObject(request);
+            }
+        }
+        return encodeHash(digest);
+    }
+
+    // An object written under a fresh blob key, not yet registered in the blob store
+    private record StagedObject(String contentHash, String contentEncoding, long storedSize) {
+    }
+
+    /**
+     * Streams content to a fresh blob key, gzip-compressing it on the way when the compression
+     * policy covers its type. The hash is always of the original bytes, so dedup does not depend
+     * on how the content happens to be stored.
+     */
+    private StagedObject stageObject(InputStream source, long size, String s3Key, ObjectMetadata metadata)
+            throws IOException, NoSuchAlgorithmException {
+        if (!compressionPolicy.shouldCompress(metadata.getContentType(), size)) {
+            return new StagedObject(streamToS3(source, size, s3Key, metadata), null, size);
+        }
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ObjectMetadata compressedMetadata = new ObjectMetadata();
+        compressedMetadata.setContentType(metadata.getContentType());
+        compressedMetadata.setCacheControl(metadata.getCacheControl());
+        compressedMetadata.setContentEncoding(CompressionPolicy.GZIP);
+        compressedMetadata.setUserMetadata(metadata.getUserMetadata());
+        try (GzipCompressingInputStream compressed =
+                     new GzipCompressingInputStream(new DigestInputStream(source, digest), compressionPolicy.getLevel())) {
+            // Compressed length is unknown up front; short results still go out as a single PUT
+            multipartUploadService.upload(s3Key, compressed, compressedMetadata);
+            log.info("Stored '{}' gzip-compressed: {} -> {} bytes.", s3Key, size, compressed.getBytesProduced());
+            return new StagedObject(encodeHash(digest), CompressionPolicy.GZIP, compressed.getBytesProduced());
+        }
+    }
+
+    private Blob adoptStaged(StagedObject staged, long size, String stagedKey) {
+        return blobStorageService.adopt(staged.contentHash(), size, stagedKey, staged.contentEncoding(), staged.storedSize());
+    }
+
+    /**
+     * Stores content in the blob store. In streaming mode the bytes go to a fresh blob key while
+     * being hashed and the staged object is dropped if the content turns out to be known; otherwise
+     * the hash is computed first and known content is not transferred at all.
+     */
+    private Blob storeContent(MultipartFile file, ObjectMetadata metadata) throws IOException, NoSuchAlgorithmException {
+        if (streamingUploadEnabled) {
+            String stagedKey = blobStorageService.newBlobKey();
+            StagedObject staged = stageObject(file.getInputStream(), file.getSize(), stagedKey, metadata);
+            log.info("Streamed content to S3 with key: '{}'.", stagedKey);
+            return adoptStaged(staged, file.getSize(), stagedKey);
+        }
+
+        String fileHash = calculateSha256Hash(file);
+        Optional<Blob> existing = blobStorageService.acquire(fileHash, file.getSize());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        String newKey = blobStorageService.newBlobKey();
+        StagedObject staged;
+        try (InputStream inputStream = file.getInputStream()) {
+            staged = stageObject(inputStream, file.getSize(), newKey, metadata);
+        }
+        log.info("Uploaded new content to S3 with key: '{}'.", newKey);
+        return adoptStaged(staged, file.getSize(), newKey);
+    }
+
+    // Either a single blob or, for large files in chunked mode, an ordered list of chunk blobs
+    private record StoredContent(String contentHash, Blob blob, List<ChunkedStorageService.StoredChunk> chunks) {
+    }
+
+    private StoredContent store(MultipartFile file, ObjectMetadata metadata) throws IOException, NoSuchAlgorithmException {
+        if (chunkedStorageService.shouldChunk(file.getSize())) {
+            try (InputStream inputStream = file.getInputStream()) {
+                ChunkedStorageService.ChunkedContent content = chunkedStorageService.store(inputStream);
+                return new StoredContent(content.contentHash(), null, content.chunks());
+            }
+        }
+        Blob blob = storeContent(file, metadata);
+        return new StoredContent(blob.getContentHash(), blob, null);
+    }
+
+    private void applyContent(File file, StoredContent content) {
+        Blob blob = content.blob();
+        file.setBlob(blob);
+        file.setChunked(blob == null);
+        // Chunked files have no single object to point at
+        file.setS3_key(blob != null ? blob.getS3Key() : null);
+        file.setFilePath(blob != null ? s3Client.getUrl(bucket, blob.getS3Key()).toString() : null);
+        file.setFileHash(content.contentHash());
+    }
+
+    // Files stored before the blob store keep their content under their own versioned S3 key
+    private boolean isLegacy(File file) {
+        return file.getBlob() == null && !file.isChunked();
+    }
+
+    void recordVersion(File file, Blob blob, int userId) {
+        fileVersionRepository.save(FileVersion.builder()
+                .file(file)
+                .blob(blob)
+                .contentHash(blob.getContentHash())
+                .userId(userId)
+                .fileSize(file.getFileSize())
+                .fileType(file.getFileType())
+                .build());
+    }
+
+    private void recordVersion(File file, StoredContent content, int userId) {
+        if (content.blob() != null) {
+            recordVersion(file, content.blob(), userId);
+            return;
+        }
+        FileVersion version = fileVersionRepository.save(FileVersion.builder()
+                .file(file)
+                .chunked(true)
+                .contentHash(content.contentHash())
+                .userId(userId)
+                .fileSize(file.getFileSize())
+                .fileType(file.getFileType())
+                .build());
+        chunkedStorageService.saveManifest(version, content.chunks());
+    }
+
+    private FileVersion currentVersion(File file) {
+        return fileVersionRepository.findFirstByFileOrderByVersionIdDesc(file)
+                .orElseThrow(() -> new FileStorageException("No stored version for file " + file.getFile_id()));
+    }
+
+    // By id alone: the reference is never initialized, only its key is bound
+    private FileVersion currentVersion(int fileId) {
+        return currentVersion(fileRepository.getReferenceById(fileId));
+    }
+
     @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
     @Transactional // Ensure atomicity for file and analytics operations
     public File uploadFile(MultipartFile file, int userId, Integer folderId, boolean isPublic) {
@@ -91,57 +348,13 @@ public class FileStorageService {
             throw new FileStorageException("File name is null");
         }
 
-        String extension = FilenameUtils.getExtension(originalFilename);
         String fileType = file.getContentType();
         long fileSize = file.getSize();
 
-        //Calculate file hash for deduplication
-        String fileHash;
-        try {
-            fileHash = calculateSha256Hash(file);
-        } catch (IOException | NoSuchAlgorithmException e) {
-            log.error("Error calculating file hash: {}", e.getMessage(), e);
-            throw new FileStorageException("Failed to calculate file hash", e);
-        }
-
-        // 2. Determine S3 key and handle deduplication
-        String newS3Key; // This will be the S3 key for the *new* file entity
-        String sourceS3KeyForCopy = null; // S3 key of an existing identical object to copy from
-        Optional<File> existingFileWithSameHashOpt = fileRepository.findByFileHash(fileHash);
-
-        if (existingFileWithSameHashOpt.isPresent()) {
-            // Deduplication scenario: content already exists in S3
-            sourceS3KeyForCopy = existingFileWithSameHashOpt.get().getS3_key();
-            log.info("Deduplication: Content with hash {} already exists. Source S3 Key for copy: {}", fileHash, sourceS3KeyForCopy);
-        }
-
-        // Generate a new S3 key for the new logical file entry
-        // This is important for S3 versioning to work independently per 'File' record in your DB.
-        // Format: users/{userId}/[folders/{folderId}/]{timestamp_uuid.extension}
-        String folderPath = (folderId != null) ? "folders/" + folderId : "root";
-        newS3Key = String.format("users/%d/%s/%s_%s.%s", userId, folderPath, Instant.now().toEpochMilli(), UUID.randomUUID().toString(), extension);
+        ObjectMetadata metadata = uploadMetadata(file, userId);
 
         try {
-            if (sourceS3KeyForCopy != null) {
-                // If content is duplicated, copy the S3 object instead of uploading
-                // This saves bandwidth and processing time.
-                s3Client.copyObject(bucket, sourceS3KeyForCopy, bucket, newS3Key);
-                log.info("Deduplication: Copied S3 object from '{}' to '{}'.", sourceS3KeyForCopy, newS3Key);
-            } else {
-                // No duplicate content, proceed with normal S3 upload
-                byte[] fileBytes = file.getBytes();
-                ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(fileBytes);
-
-                ObjectMetadata metadata = new ObjectMetadata();
-                metadata.setContentLength(fileSize);
-                metadata.setContentType(fileType);
-                metadata.addUserMetadata("uploaded-by", String.valueOf(userId));
-                metadata.setCacheControl("max-age=31536000"); // Example cache control
-
-                PutObjectRequest request = new PutObjectRequest(bucket, newS3Key, byteArrayInputStream, metadata);
-                s3Client.putObject(request);
-                log.info("Uploaded new file to S3 with key: '{}'.", newS3Key);
-            }
+            StoredContent content = store(file, metadata);
 
             // Get folder entity if folderId is provided
             Folder folder = folderId != null ? folderRepository.findById(folderId).orElse(null) : null;
@@ -151,16 +364,17 @@ public class FileStorageService {
                     .userId(userId)
                     .folder(folder)
                     .fileName(originalFilename)
-                    .s3_key(newS3Key) // Store the newly generated S3 key
                     .fileSize(fileSize)
                     .fileType(fileType)
-                    .filePath(s3Client.getUrl(bucket, newS3Key).toString()) // Generate URL for the new key
                     .isPublic(isPublic)
-                    .status(FileStatus.AVAILABLE)
-                    .fileHash(fileHash) // Store the calculated hash
+                    .status(processingQueue.initialStatus()) // Available once post-upload processing has run
                     .build();
+            applyContent(fileEntity, content); // Shared blob key and the calculated hash
 
             File savedFile = fileRepository.save(fileEntity);
+            recordVersion(savedFile, content, userId);
+            processingQueue.enqueue(savedFile);
+            autocompleteIndex.fileAdded(userId, savedFile.getFileName());
 
             // 4. Log Analytics Event for Upload
             AnalyticsEvent uploadEvent = new AnalyticsEvent();
@@ -186,46 +400,468 @@ public class FileStorageService {
         }
     }
 
+    private ObjectMetadata uploadMetadata(MultipartFile file, int userId) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(file.getSize());
+        metadata.setContentType(file.getContentType());
+        metadata.addUserMetadata("uploaded-by", String.valueOf(userId));
+        metadata.setCacheControl("max-age=31536000"); // Example cache control
+        return metadata;
+    }
+
+    /**
+     * Uploads many files in one request. Small parts are streamed to S3 concurrently on the transfer
+     * pool; large parts go through the multipart/chunked path on this thread, since those already
+     * parallelise on the same pool. All rows are then written in one transaction with saveAll.
+     * A part that fails is reported in its result and does not affect the others.
+     */
+    @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
+    @Transactional
+    public List<BatchUploadResult> uploadFiles(List<MultipartFile> files, int userId, Integer folderId, boolean isPublic) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("At least one file is required");
+        }
+        if (files.size() > batchMaxFiles) {
+            throw new IllegalArgumentException("A batch may contain at most " + batchMaxFiles + " files");
+        }
+
+        int count = files.size();
+        BatchUploadResult[] results = new BatchUploadResult[count];
+        String[] stagedKeys = new String[count];
+        List<Future<StagedObject>> transfers = new ArrayList<>(Collections.nCopies(count, null));
+        Semaphore permits = new Semaphore(batchConcurrency);
+
+        // 1. Transfer small parts concurrently, each hashed on its way to a fresh blob key
+        try {
+            for (int i = 0; i < count; i++) {
+                MultipartFile part = files.get(i);
+                if (part.isEmpty() || part.getOriginalFilename() == null) {
+                    results[i] = failedUpload(part.getOriginalFilename(), "FILE_EMPTY", "File must not be empty");
+                    continue;
+                }
+                // Compressed parts have an unknown length and may need a multipart upload of their own
+                boolean mayNeedParts = compressionPolicy.shouldCompress(part.getContentType(), part.getSize())
+                        && part.getSize() > multipartUploadService.getPartSize();
+                if (mayNeedParts || multipartUploadService.shouldUseMultipart(part.getSize()) || chunkedStorageService.shouldChunk(part.getSize())) {
+                    continue; // stored in step 2
+                }
+                String stagedKey = blobStorageService.newBlobKey();
+                stagedKeys[i] = stagedKey;
+                permits.acquire();
+                try {
+                    transfers.set(i, transferExecutor.submit(() -> {
+                        try {
+                            return stageObject(part.getInputStream(), part.getSize(), stagedKey, uploadMetadata(part, userId));
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discardTransfers(transfers, stagedKeys);
+            throw new FileStorageException("Batch upload interrupted", e);
+        } catch (RuntimeException e) {
+            discardTransfers(transfers, stagedKeys);
+            throw e;
+        }
+
+        // 2. Register the content and build the rows on this thread, which owns the transaction
+        Folder folder = folderId != null ? folderRepository.findById(folderId).orElse(null) : null;
+        List<File> entities = new ArrayList<>();
+        List<StoredContent> contents = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            MultipartFile part = files.get(i);
+            try {
+                StoredContent content;
+                if (transfers.get(i) != null) {
+                    StagedObject staged = transfers.get(i).get();
+                    content = new StoredContent(staged.contentHash(), adoptStaged(staged, part.getSize(), stagedKeys[i]), null);
+                } else {
+                    content = store(part, uploadMetadata(part, userId));
+                }
+
+                File fileEntity = File.builder()
+                        .userId(userId)
+                        .folder(folder)
+                        .fileName(part.getOriginalFilename())
+                        .fileSize(part.getSize())
+                        .fileType(part.getContentType())
+                        .isPublic(isPublic)
+                        .status(processingQueue.initialStatus())
+                        .build();
+                applyContent(fileEntity, content);
+                entities.add(fileEntity);
+                contents.add(content);
+                positions.add(i);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                discardTransfers(transfers, stagedKeys);
+                throw new FileStorageException("Batch upload interrupted", e);
+            } catch (ExecutionException e) {
+                log.error("Batch upload of '{}' failed: {}", part.getOriginalFilename(), e.getCause().getMessage(), e.getCause());
+                blobStorageService.deleteStaged(stagedKeys[i]);
+                results[i] = failedUpload(part.getOriginalFilename(), "STORAGE_ERROR", "Storage service error");
+            } catch (IOException | NoSuchAlgorithmException | AmazonServiceException | FileStorageException e) {
+                log.error("Batch upload of '{}' failed: {}", part.getOriginalFilename(), e.getMessage(), e);
+                results[i] = failedUpload(part.getOriginalFilename(), "UPLOAD_FAILED", "File upload failed");
+            }
+        }
+
+        // 3. Persist files, versions and analytics events together
+        List<File> savedFiles = fileRepository.saveAll(entities);
+        List<FileVersion> blobVersions = new ArrayList<>();
+        List<AnalyticsEvent> uploadEvents = new ArrayList<>(savedFiles.size());
+        for (int j = 0; j < savedFiles.size(); j++) {
+            File savedFile = savedFiles.get(j);
+            StoredContent content = contents.get(j);
+            if (content.blob() != null) {
+                blobVersions.add(FileVersion.builder()
+                        .file(savedFile)
+                        .blob(content.blob())
+                        .contentHash(content.contentHash())
+                        .userId(userId)
+                        .fileSize(savedFile.getFileSize())
+                        .fileType(savedFile.getFileType())
+                        .build());
+            } else {
+                recordVersion(savedFile, content, userId);
+            }
+
+            AnalyticsEvent uploadEvent = new AnalyticsEvent();
+            uploadEvent.setUserId(userId);
+            uploadEvent.setEventType("UPLOAD");
+            uploadEvent.setTimestamp(Instant.now());
+            uploadEvent.setFileSize(savedFile.getFileSize());
+            uploadEvent.setFileType(savedFile.getFileType());
+            uploadEvent.setFileId(savedFile.getFile_id());
+            uploadEvents.add(uploadEvent);
+
+            autocompleteIndex.fileAdded(userId, savedFile.getFileName());
+            results[positions.get(j)] = new BatchUploadResult(savedFile.getFileName(), true, convertToDto(savedFile), null);
+        }
+        fileVersionRepository.saveAll(blobVersions);
+        processingQueue.enqueueAll(savedFiles);
+        analyticsEventRepository.saveAll(uploadEvents);
+        log.info("Analytics: Logged {} UPLOAD events for batch of {} files", uploadEvents.size(), count);
 
+        return Arrays.asList(results);
+    }
+
+    private BatchUploadResult failedUpload(String fileName, String code, String message) {
+        return new BatchUploadResult(fileName, false, null, new ErrorResponse(code, message));
+    }
+
+    // Stops transfers that have not run yet and removes anything already staged
+    private void discardTransfers(List<Future<StagedObject>> transfers, String[] stagedKeys) {
+        for (int i = 0; i < stagedKeys.length; i++) {
+            if (transfers.get(i) != null) {
+                transfers.get(i).cancel(true);
+            }
+            if (stagedKeys[i] != null) {
+                blobStorageService.deleteStaged(stagedKeys[i]);
+            }
+        }
+    }
+
+    /**
+     * Hash-first upload: if identical content is already stored, the new file just takes a reference
+     * on its blob and the client sends no bytes. Returns empty when the client has to upload normally.
+     * Unless cross-user dedup is enabled, only content the caller can already read is reused, so a
+     * leaked hash alone does not grant access to someone else's file.
+     */
+    @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
+    @Transactional
+    public Optional<File> instantUpload(InstantUploadRequest request, int userId) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new IllegalArgumentException("File name must not be empty");
+        }
+        if (request.getFileHash() == null || request.getFileHash().isBlank()) {
+            throw new IllegalArgumentException("File hash must be provided");
+        }
+
+        List<File> candidates = fileRepository
+                .findByFileHashAndFileSizeAndStatus(request.getFileHash(), request.getFileSize(), FileStatus.AVAILABLE)
+                .stream()
+                .filter(candidate -> !isLegacy(candidate))
+                .filter(candidate -> instantUploadCrossUser || filePermissionService.canAccessFile(userId, candidate))
+                .toList();
+
+        StoredContent content = null;
+        if (instantUploadCrossUser || !candidates.isEmpty()) {
+            Optional<Blob> blob = blobStorageService.acquire(request.getFileHash(), request.getFileSize());
+            if (blob.isPresent()) {
+                content = new StoredContent(request.getFileHash(), blob.get(), null);
+            } else {
+                // Chunked content has no whole-file blob; share the chunks of a matching file instead
+                Optional<File> chunkedSource = candidates.stream().filter(File::isChunked).findFirst();
+                if (chunkedSource.isPresent()) {
+                    content = new StoredContent(request.getFileHash(), null,
+                            chunkedStorageService.copyManifest(currentVersion(chunkedSource.get())));
+                }
+            }
+        }
+        if (content == null) {
+            log.info("Instant upload miss for hash {}: client must upload the content.", request.getFileHash());
+            return Optional.empty();
+        }
+
+        Folder folder = request.getFolderId() != null ? folderRepository.findById(request.getFolderId()).orElse(null) : null;
+        String fileType = request.getFileType() != null ? request.getFileType() : "application/octet-stream";
+
+        File fileEntity = File.builder()
+                .userId(userId)
+                .folder(folder)
+                .fileName(request.getFileName())
+                .fileSize(request.getFileSize())
+                .fileType(fileType)
+                .isPublic(Boolean.TRUE.equals(request.getIsPublic()))
+                .status(processingQueue.initialStatus())
+                .build();
+        applyContent(fileEntity, content);
+        File savedFile = fileRepository.save(fileEntity);
+        recordVersion(savedFile, content, userId);
+        processingQueue.enqueue(savedFile);
+        autocompleteIndex.fileAdded(userId, savedFile.getFileName());
+
+        AnalyticsEvent uploadEvent = new AnalyticsEvent();
+        uploadEvent.setUserId(userId);
+        uploadEvent.setEventType("UPLOAD");
+        uploadEvent.setTimestamp(Instant.now());
+        uploadEvent.setFileSize(request.getFileSize());
+        uploadEvent.setFileType(fileType);
+        uploadEvent.setFileId(savedFile.getFile_id());
+        analyticsEventRepository.save(uploadEvent);
+        log.info("Instant upload hit for hash {}: created file ID {} without receiving bytes.", request.getFileHash(), savedFile.getFile_id());
+
+        return Optional.of(savedFile);
+    }
+
+    // Current content of any kind of file, without the download bookkeeping
+    public InputStream openContent(File file) {
+        if (file.isChunked()) {
+            return chunkedStorageService.open(currentVersion(file));
+        }
+        if (file.getBlob() != null) {
+            return blobStorageService.open(file.getBlob()); // decodes compressed blobs
+        }
+        return new S3ContentStream(s3Client.getObject(bucket, file.getS3_key()).getObjectContent());
+    }
+
+    /**
+     * Loads what a download of {@code fileId} needs, and whether {@code userId} may read it, in one
+     * query. The result is passed to openDownload, openRange and presignDownload, so a download
+     * does not go back to the database for the file.
+     */
+    public DownloadMetadata downloadMetadata(int fileId, int userId) throws FileNotFoundException {
+        return fileRepository.findDownloadMetadata(fileId, userId)
+                .orElseThrow(() -> new FileNotFoundException("File not found with ID: " + fileId));
+    }
+
+    /**
+     * Opens the current content of a file for download without reading it into memory. The S3
+     * request is made here, so storage errors surface before the response is committed.
+     * With {@code keepEncoding}, compressed content is returned exactly as stored, for clients that
+     * accept the encoding; otherwise it is decompressed on the fly.
+     * <p>
+     * Decoded content is served from the local object cache when it is there. Otherwise it is
+     * streamed from S3, through a fetch shared with concurrent downloads of the same content when
+     * there are any, or when it is small enough to be added to the cache.
+     */
     @Transactional // Log download event
-    public Resource loadFileAsResource(Integer fileId, String s3Key) {
+    public FileDownload openDownload(DownloadMetadata file, boolean keepEncoding) {
+        int fileId = file.fileId();
+        String encoding = file.contentEncoding();
+        FileDownload download;
+        if (encoding != null && keepEncoding) {
+            // Sent exactly as stored; the cache only holds decoded content
+            try {
+                S3Object s3Object = s3Client.getObject(bucket, file.contentKey());
+                download = new FileDownload(new S3ContentStream(s3Object.getObjectContent()),
+                        s3Object.getObjectMetadata().getContentLength(), encoding);
+            } catch (AmazonS3Exception e) {
+                log.error("Error opening file in S3 (fileId: {}): {}", fileId, e.getMessage(), e);
+                throw new FileStorageException(fileId, "download", e);
+            }
+            logDownload(file);
+            return download;
+        }
+
+        String cacheKey = file.fileHash(); // content hash of the decoded bytes
+        Optional<FileDownload> cached = objectCache.open(cacheKey);
+        if (cached.isPresent()) {
+            logDownload(file);
+            return cached.get();
+        }
+
+        long size = file.contentSize();
+        // Resolved here: the fetch may run on another thread, outside this transaction
+        FileVersion version = file.chunked() ? currentVersion(fileId) : null;
+        String s3Key = file.contentKey();
+        boolean compressed = encoding != null;
+        // Files stored before content hashing are keyed by id and modification time instead
+        String fetchKey = cacheKey != null ? cacheKey
+                : "file-" + fileId + "@" + (file.lastModified() != null ? file.lastModified().getTime() : 0);
         try {
-            S3Object s3Object = s3Client.getObject(bucket, s3Key);
-            byte[] bytes = s3Object.getObjectContent().readAllBytes();
-
-            // Log Analytics Event for Download
-            File file = fileRepository.findById(fileId).orElse(null);
-            if (file != null) {
-                AnalyticsEvent downloadEvent = new AnalyticsEvent();
-                downloadEvent.setUserId(file.getUserId()); // Assuming ownerId is the user who downloaded
-                downloadEvent.setEventType("DOWNLOAD");
-                downloadEvent.setTimestamp(Instant.now());
-                downloadEvent.setFileSize(file.getFileSize());
-                downloadEvent.setFileType(file.getFileType());
-                downloadEvent.setFileId(fileId);
-                analyticsEventRepository.save(downloadEvent);
-                log.info("Analytics: Logged DOWNLOAD event for file ID: {}", fileId);
+            // Streams straight from S3 unless the object will be cached or someone else is reading it
+            SingleFlightFetcher.Completion fill = objectCache.accepts(cacheKey, size) ? objectCache::offer : null;
+            InputStream content = singleFlightFetcher.open(fetchKey, size, () -> openDecoded(s3Key, version, compressed, size), fill);
+            download = new FileDownload(content, size, null);
+        } catch (AmazonS3Exception | IOException e) {
+            log.error("Error opening file in S3 (fileId: {}): {}", fileId, e.getMessage(), e);
+            throw new FileStorageException(fileId, "download", e);
+        }
+
+        logDownload(file);
+        return download;
+    }
+
+    /**
+     * Opens bytes {@code start}..{@code end} (inclusive) of the file's original content. A cached
+     * copy is read at the offset; otherwise plain objects and chunks are fetched with ranged S3
+     * GETs, and compressed blobs, which cannot be addressed by offset, are decompressed from the
+     * beginning with the prefix skipped.
+     */
+    @Transactional
+    public FileDownload openRange(DownloadMetadata file, long start, long end) {
+        int fileId = file.fileId();
+        Optional<FileDownload> cached = objectCache.open(file.fileHash(), start, end - start + 1);
+        if (cached.isPresent()) {
+            if (start == 0) {
+                logDownload(file);
             }
+            return cached.get();
+        }
 
-            return new ByteArrayResource(bytes){
-                @Override
-                public String getFilename() {
-                    return s3Key.substring(s3Key.lastIndexOf('/') + 1);
+        InputStream range;
+        try {
+            if (file.chunked()) {
+                range = chunkedStorageService.openRange(currentVersion(fileId), start, end);
+            } else if (file.contentEncoding() != null) {
+                InputStream decoded = openDecoded(file.contentKey(), null, true, file.contentSize());
+                try {
+                    IOUtils.skipFully(decoded, start);
+                } catch (IOException e) {
+                    decoded.close();
+                    throw e;
                 }
-            };
+                range = new BoundedInputStream(decoded, end - start + 1);
+            } else {
+                GetObjectRequest request = new GetObjectRequest(bucket, file.contentKey()).withRange(start, end);
+                range = new S3ContentStream(s3Client.getObject(request).getObjectContent());
+            }
         } catch (IOException | AmazonS3Exception e) {
-            log.error("Error loading file from S3 (fileId: {}): {}", fileId, e.getMessage(), e);
+            log.error("Error opening range {}-{} in S3 (fileId: {}): {}", start, end, fileId, e.getMessage(), e);
             throw new FileStorageException(fileId, "download", e);
         }
+
+        // Players and download managers fetch many ranges; only a read from the start counts as a download
+        if (start == 0) {
+            logDownload(file);
+        }
+        return new FileDownload(range, end - start + 1, null);
     }
 
-    @Cacheable(value = "files", key = "#userId")
-    public List<FileResponse> getAllFiles(int userId) {
-        log.info("Fetching all files for user {} from database (potentially cached).", userId);
-        List<File> accessibleFiles = fileRepository.findAccessibleFiles(userId);
-        return accessibleFiles.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    /**
+     * Signs a short-lived URL for fetching the file straight from storage. Only content stored as a
+     * single object can be handed out this way: chunked files have to be reassembled here, and
+     * compressed blobs only qualify when the client accepts the stored encoding.
+     */
+    @Transactional
+    public Optional<DownloadUrlSigner.SignedUrl> presignDownload(DownloadMetadata file, boolean keepEncoding) {
+        String encoding = file.contentEncoding();
+        if (file.chunked() || (encoding != null && !keepEncoding)) {
+            return Optional.empty();
+        }
+        String disposition = ContentDisposition.attachment()
+                .filename(file.fileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString();
+        DownloadUrlSigner.SignedUrl signed = downloadUrlSigner.sign(file.contentKey(), disposition, file.fileType(), encoding,
+                Duration.ofSeconds(presignedUrlTtlSeconds));
+
+        logDownload(file);
+        return Optional.of(signed);
+    }
+
+    // Stored bytes of an object, exactly as written; used by the local signed-URL stand-in
+    public FileDownload openStoredObject(String s3Key) {
+        S3Object s3Object = s3Client.getObject(bucket, s3Key);
+        return new FileDownload(new S3ContentStream(s3Object.getObjectContent()),
+                s3Object.getObjectMetadata().getContentLength(), null);
+    }
+
+    // Original bytes of the current content: reassembled chunks, decompressed blob or plain object
+    private InputStream openDecoded(String s3Key, FileVersion chunkedVersion, boolean compressed, long size) {
+        if (chunkedVersion != null) {
+            return size >= parallelDownloadThreshold
+                    ? parallelRanges(chunkedStorageService.rangeReader(chunkedVersion), size)
+                    : chunkedStorageService.open(chunkedVersion);
+        }
+        if (compressed) {
+            return decode(new S3ContentStream(s3Client.getObject(bucket, s3Key).getObjectContent()));
+        }
+        if (size >= parallelDownloadThreshold) {
+            // HEAD for the exact length; also makes a missing object fail before any range is read
+            long length = s3Client.getObjectMetadata(bucket, s3Key).getContentLength();
+            return parallelRanges((start, end) -> new S3ContentStream(
+                    s3Client.getObject(new GetObjectRequest(bucket, s3Key).withRange(start, end)).getObjectContent()), length);
+        }
+        return new S3ContentStream(s3Client.getObject(bucket, s3Key).getObjectContent());
+    }
+
+    private InputStream parallelRanges(ParallelRangeInputStream.RangeFetcher fetcher, long length) {
+        return new ParallelRangeInputStream(fetcher, length, parallelDownloadPartSize,
+                parallelDownloadConcurrency, downloadExecutor);
+    }
+
+    private void logDownload(DownloadMetadata file) {
+        // Log Analytics Event for Download
+        AnalyticsEvent downloadEvent = new AnalyticsEvent();
+        downloadEvent.setUserId(file.ownerId()); // Assuming ownerId is the user who downloaded
+        downloadEvent.setEventType("DOWNLOAD");
+        downloadEvent.setTimestamp(Instant.now());
+        downloadEvent.setFileSize(file.fileSize());
+        downloadEvent.setFileType(file.fileType());
+        downloadEvent.setFileId(file.fileId());
+        analyticsEventRepository.save(downloadEvent);
+        log.info("Analytics: Logged DOWNLOAD event for file ID: {}", file.fileId());
+    }
+
+    private InputStream decode(InputStream stored) {
+        try {
+            return new GZIPInputStream(stored, 65536);
+        } catch (IOException e) {
+            try {
+                stored.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            throw new FileStorageException("Failed to read compressed content", e);
+        }
+    }
+
+    /**
+     * One page of the files a user can see. Pass the previous page's nextCursor to continue; a
+     * missing or oversized limit falls back to the configured page sizes.
+     */
+    @Cacheable(value = "files", key = "#userId + '-' + #sort + '-' + #cursor + '-' + #limit")
+    @Transactional(readOnly = true) // Served by a read replica when one is configured
+    public FilePage getFiles(int userId, FileSortOrder sort, String cursor, Integer limit) {
+        log.info("Fetching files for user {} from database (potentially cached).", userId);
+        int pageSize = pageSize(limit);
+        FileCursor after = cursor != null ? FileCursor.decode(cursor, sort) : null;
+        // One extra row tells whether another page follows
+        List<File> files = fileRepository.findAccessiblePage(userId, sort, after, pageSize + 1);
+        return toPage(files, pageSize, file -> FileCursor.after(file, sort));
     }
 
     private FileResponse convertToDto(File file) {
@@ -240,40 +876,82 @@ public class FileStorageService {
                 file.isPublic(),
                 file.getFileType(),
                 file.getCreated_at(),
-                tagNames
+                tagNames,
+                EntityTags.of(file),
+                file.getUpdated_at()
         );
     }
 
-    @Cacheable(value = "searchResults", key = "#userId + '-' + #query + '-' + #tag")
-    public List<FileResponse> searchFile(Integer userId, String query, String tag) {
+    /**
+     * One page of the user's files matching {@code query} by name or tag, typos included. Ordered by
+     * relevance unless another sort is asked for.
+     */
+    @Cacheable(value = "searchResults", key = "#userId + '-' + #query + '-' + #tag + '-' + #sort + '-' + #cursor + '-' + #limit")
+    @Transactional(readOnly = true)
+    public FilePage searchFile(Integer userId, String query, String tag, FileSortOrder sort, String cursor, Integer limit) {
         log.info("Searching files for user {} with query '{}' and tag '{}' (potentially cached).", userId, query, tag);
-        List<File> matchedFiles;
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("query must not be empty");
+        }
+        int pageSize = pageSize(limit);
+        FileCursor after = cursor != null ? FileCursor.decode(cursor, sort) : null;
+        List<FileRepositoryCustom.SearchHit> hits = fileRepository.searchPage(userId, query, tag, sort, after, pageSize + 1);
+
+        Map<Integer, Double> ranks = new HashMap<>();
+        hits.forEach(hit -> ranks.put(hit.file().getFile_id(), hit.rank()));
+        return toPage(hits.stream().map(FileRepositoryCustom.SearchHit::file).toList(), pageSize,
+                file -> sort == FileSortOrder.RELEVANCE
+                        ? new FileCursor(sort, ranks.get(file.getFile_id()), file.getFile_id())
+                        : FileCursor.after(file, sort));
+    }
 
-        if (tag != null && !tag.isBlank()) {
-            matchedFiles = fileRepository.searchByNameOrTag(userId, query, tag);
-        } else {
-            matchedFiles = fileRepository.searchByName(userId, query);
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
         }
+        return Math.min(limit, maxPageSize);
+    }
 
-        return matchedFiles.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    private FilePage toPage(List<File> files, int pageSize, Function<File, FileCursor> cursorAfter) {
+        boolean more = files.size() > pageSize;
+        List<File> page = more ? files.subList(0, pageSize) : files;
+        String nextCursor = more ? cursorAfter.apply(page.get(page.size() - 1)).encode() : null;
+        return new FilePage(page.stream().map(this::convertToDto).collect(Collectors.toList()), nextCursor);
     }
 
 
+    public FileStatusResponse getFileStatus(Integer fileId) throws FileNotFoundException {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new FileNotFoundException("File not found with ID: " + fileId));
+        Map<String, String> metadata = file.getMetadata() != null ? new TreeMap<>(file.getMetadata()) : Collections.emptyMap();
+        return new FileStatusResponse(file.getFile_id(), file.getStatus().name(), metadata);
+    }
+
+    // No surrounding transaction: the version reads run read-only (replica), the analytics insert on the primary
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<FileVersionResponse> listFileVersions(Integer fileId) throws FileNotFoundException {
         File file = fileRepository.findById(fileId)
                 .orElseThrow(() -> new FileNotFoundException("File not found with ID: " + fileId));
 
-        String key = file.getS3_key(); // The S3 key for the logical file
+        List<FileVersionResponse> versions = new ArrayList<>();
+        if (!isLegacy(file)) {
+            // Blob-backed files keep their history in the database
+            for (FileVersion version : fileVersionRepository.findByFileOrderByVersionIdDesc(file)) {
+                versions.add(new FileVersionResponse(String.valueOf(version.getVersionId()), version.getCreated_at().toInstant(), version.getFileSize()));
+            }
+        } else {
+            String key = file.getS3_key(); // The S3 key for the logical file
 
-        ListVersionsRequest request = new ListVersionsRequest().withBucketName(bucket).withPrefix(key);
-        VersionListing versionListing = s3Client.listVersions(request);
+            ListVersionsRequest request = new ListVersionsRequest().withBucketName(bucket).withPrefix(key);
+            VersionListing versionListing = s3Client.listVersions(request);
 
-        List<FileVersionResponse> versions = new ArrayList<>();
-        for (S3VersionSummary summary : versionListing.getVersionSummaries()) {
-            log.debug("Found S3 version: ID={}, LastModified={}, Size={}", summary.getVersionId(), summary.getLastModified(), summary.getSize());
-            versions.add(new FileVersionResponse(summary.getVersionId(), summary.getLastModified().toInstant(), summary.getSize()));
+            for (S3VersionSummary summary : versionListing.getVersionSummaries()) {
+                log.debug("Found S3 version: ID={}, LastModified={}, Size={}", summary.getVersionId(), summary.getLastModified(), summary.getSize());
+                versions.add(new FileVersionResponse(summary.getVersionId(), summary.getLastModified().toInstant(), summary.getSize()));
+            }
         }
 
         // Log analytics event for viewing versions (optional, can be done in controller too)
@@ -298,6 +976,11 @@ public class FileStorageService {
             throw new AccessDeniedException("You do not have permission to restore this file.");
         }
 
+        if (!isLegacy(file)) {
+            restoreBlobVersion(file, versionId, user);
+            return;
+        }
+
         String key = file.getS3_key();
 
         try {
@@ -311,6 +994,10 @@ public class FileStorageService {
             metadata.setContentType(oldVersionObject.getObjectMetadata().getContentType()); // Keep original content type
             s3Client.putObject(bucket, key, contentStream, metadata);
 
+            // Size and hash follow the content: the hash is the ETag and the download cache key
+            file.setFileSize(metadata.getContentLength());
+            file.setFileHash(blobStorageService.hashObject(key));
+
             // Update the file entity's last_modified timestamp
             file.setUpdated_at(Date.from(Instant.now())); // Assuming 'updated_at' is now 'last_modified' of type Instant
             fileRepository.save(file);
@@ -337,6 +1024,38 @@ public class FileStorageService {
     }
 
 
+    // Restoring only re-points the file at the old blob or chunks; no bytes are copied
+    private void restoreBlobVersion(File file, String versionId, Users user) throws FileNotFoundException {
+        FileVersion oldVersion;
+        try {
+            oldVersion = fileVersionRepository.findByVersionIdAndFile(Long.valueOf(versionId), file)
+                    .orElseThrow(() -> new FileNotFoundException("Version not found: " + versionId));
+        } catch (NumberFormatException e) {
+            throw new FileNotFoundException("Version not found: " + versionId);
+        }
+
+        StoredContent content = oldVersion.isChunked()
+                ? new StoredContent(oldVersion.getContentHash(), null, chunkedStorageService.copyManifest(oldVersion))
+                : new StoredContent(oldVersion.getBlob().getContentHash(), blobStorageService.retain(oldVersion.getBlob()), null);
+        applyContent(file, content);
+        file.setFileSize(oldVersion.getFileSize());
+        file.setFileType(oldVersion.getFileType());
+        file.setUpdated_at(Date.from(Instant.now()));
+        fileRepository.save(file);
+        recordVersion(file, content, user.getUserId());
+
+        AnalyticsEvent restoreEvent = new AnalyticsEvent();
+        restoreEvent.setUserId(user.getUserId());
+        restoreEvent.setEventType("RESTORE_VERSION");
+        restoreEvent.setTimestamp(Instant.now());
+        restoreEvent.setFileId(file.getFile_id());
+        restoreEvent.setFileSize(oldVersion.getFileSize());
+        restoreEvent.setFileType(oldVersion.getFileType());
+        analyticsEventRepository.save(restoreEvent);
+        log.info("Analytics: Logged RESTORE_VERSION event for file ID: {}", file.getFile_id());
+    }
+
+
     @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
     @Transactional // Log update event
     public File updateFile(Integer fileId, MultipartFile file, Integer userId, Boolean isPublic) throws FileNotFoundException {
@@ -350,24 +1069,41 @@ public class FileStorageService {
             }
 
             log.info("Starting file update for fileId: {}", fileId);
-            log.info("Overwriting existing file in S3: {}", fileEntity.getS3_key());
 
-            // Overwrite file at existing s3_key (S3 versioning will handle new version)
             ObjectMetadata metadata = new ObjectMetadata();
             metadata.setContentLength(file.getSize());
             metadata.setContentType(file.getContentType());
             metadata.addUserMetadata("updated-by", String.valueOf(userId)); // Optional metadata
 
-            s3Client.putObject(bucket, fileEntity.getS3_key(), file.getInputStream(), metadata);
+            StoredContent content = null;
+            if (!isLegacy(fileEntity)) {
+                // Blobs are shared, so new content becomes a new blob (or chunk list) and a new version row
+                content = store(file, metadata);
+                applyContent(fileEntity, content);
+            } else {
+                // Legacy file: overwrite at existing s3_key (S3 versioning will handle new version)
+                log.info("Overwriting existing file in S3: {}", fileEntity.getS3_key());
+                fileEntity.setFileHash(streamToS3(file.getInputStream(), file.getSize(), fileEntity.getS3_key(), metadata));
+            }
 
             // Update existing entity metadata
+            autocompleteIndex.fileRenamed(userId, fileEntity.getFileName(), file.getOriginalFilename());
             fileEntity.setFileName(file.getOriginalFilename());
             fileEntity.setFileType(file.getContentType());
             fileEntity.setFileSize(file.getSize());
             fileEntity.setPublic(isPublic);
             fileEntity.setUpdated_at(Date.from(Instant.now())); // Update last_modified
+            // New content is processed again; metadata of the old content no longer applies
+            fileEntity.setStatus(processingQueue.initialStatus());
+            if (fileEntity.getMetadata() != null) {
+                fileEntity.getMetadata().clear();
+            }
 
             File updatedFile = fileRepository.save(fileEntity);
+            if (content != null) {
+                recordVersion(updatedFile, content, userId);
+            }
+            processingQueue.enqueue(updatedFile);
 
             // Log Analytics Event for Update
             AnalyticsEvent updateEvent = new AnalyticsEvent();
@@ -408,12 +1144,28 @@ public class FileStorageService {
             throw new AccessDeniedException("Unauthorized delete");
         }
 
-        // 1. Delete from S3 (this deletes all versions if S3 versioning is enabled)
-        deleteFromS3(file.getS3_key());
-        log.info("Deleted S3 object with key: '{}' for file ID: {}", file.getS3_key(), fileId);
+        // 1. Release the content. Shared blobs are only deleted from S3 once unreferenced.
+        if (!isLegacy(file)) {
+            List<FileVersion> versions = fileVersionRepository.findByFileOrderByVersionIdDesc(file);
+            for (FileVersion version : versions) {
+                if (version.isChunked()) {
+                    chunkedStorageService.releaseManifest(version);
+                } else {
+                    blobStorageService.release(version.getBlob());
+                }
+            }
+            fileVersionRepository.deleteAll(versions);
+            log.info("Released {} version(s) of file ID: {}", versions.size(), fileId);
+        } else {
+            // This deletes all versions if S3 versioning is enabled
+            deleteFromS3(file.getS3_key());
+            log.info("Deleted S3 object with key: '{}' for file ID: {}", file.getS3_key(), fileId);
+        }
 
         // 2. Delete from database
+        List<String> tagNames = file.getTags() == null ? List.of() : file.getTags().stream().map(Tag::getName).toList();
         fileRepository.delete(file);
+        autocompleteIndex.fileRemoved(userId, file.getFileName(), tagNames);
         log.info("Deleted file entity from database for file ID: {}", fileId);
 
         // 3. Log Analytics Event for Delete
@@ -440,4 +1192,4 @@ public class FileStorageService {
             throw new RuntimeException("Failed to delete file from S3: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
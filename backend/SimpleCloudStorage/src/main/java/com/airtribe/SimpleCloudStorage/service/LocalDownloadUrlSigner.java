@@ -0,0 +1,84 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Development stand-in for presigned URLs: links point back at this application
+ * ({@code /api/files/signed}) and carry an HMAC over the key, expiry and response headers.
+ * Without a configured secret a random one is used, so links do not survive a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "file.download.signer", havingValue = "local")
+public class LocalDownloadUrlSigner implements DownloadUrlSigner {
+
+    private final String baseUrl;
+    private final byte[] secret;
+
+    public LocalDownloadUrlSigner(@Value("${file.download.local.base-url:http://localhost:8080}") String baseUrl,
+                                  @Value("${file.download.local.secret:}") String secret) {
+        this.baseUrl = baseUrl;
+        if (secret.isBlank()) {
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public SignedUrl sign(String s3Key, String contentDisposition, String contentType, String contentEncoding, Duration ttl) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        long expires = expiresAt.getEpochSecond();
+        StringBuilder url = new StringBuilder(baseUrl).append("/api/files/signed");
+        url.append("?key=").append(encode(s3Key))
+                .append("&expires=").append(expires)
+                .append("&disposition=").append(encode(contentDisposition));
+        if (contentType != null) {
+            url.append("&type=").append(encode(contentType));
+        }
+        if (contentEncoding != null) {
+            url.append("&encoding=").append(encode(contentEncoding));
+        }
+        url.append("&signature=").append(signature(s3Key, expires, contentDisposition, contentType, contentEncoding));
+        return new SignedUrl(url.toString(), expiresAt);
+    }
+
+    public boolean verify(String s3Key, long expires, String contentDisposition, String contentType,
+                          String contentEncoding, String signature) {
+        if (Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        String expected = signature(s3Key, expires, contentDisposition, contentType, contentEncoding);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private String signature(String s3Key, long expires, String contentDisposition, String contentType, String contentEncoding) {
+        String payload = s3Key + "\n" + expires + "\n" + contentDisposition + "\n" + contentType + "\n" + contentEncoding;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
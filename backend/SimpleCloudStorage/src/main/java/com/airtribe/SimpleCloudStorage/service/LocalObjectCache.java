@@ -0,0 +1,194 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Node-local read-through cache of file content on disk, keyed by content hash so an entry can
+ * never go stale. Entries are evicted least recently used first once the byte budget is exceeded.
+ * <p>
+ * Entries arrive as completed fetches from {@link SingleFlightFetcher}: forced to disk and moved
+ * into place atomically, so a crash can leave behind spool files (removed on startup) but never a
+ * truncated entry.
+ */
+@Slf4j
+@Component
+public class LocalObjectCache {
+
+    // Completed fetches are not kept rather than run the disk full
+    private static final long MIN_FREE_BYTES = 1024L * 1024 * 1024;
+
+    @Value("${file.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.cache.dir:${file.upload-dir:./uploads}/cache}")
+    private String directory;
+
+    @Value("${file.cache.max-bytes:10737418240}")
+    private long maxBytes;
+
+    // Larger objects are always streamed from S3 so one download cannot flush the whole cache
+    @Value("${file.cache.max-object-bytes:536870912}")
+    private long maxObjectBytes;
+
+    private Path root;
+    // Default spool directory of SingleFlightFetcher, which keeps moves into the cache on one file system
+    private Path staging;
+
+    // Access-ordered, so iteration starts with the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fills = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Counters since startup; fills are completed fetches kept as entries
+    public record Stats(long hits, long misses, long fills, long evictions, int entries, long bytes, long maxBytes) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(directory).toAbsolutePath();
+        staging = root.resolve("tmp");
+        Files.createDirectories(root);
+
+        // Rebuild the index, oldest first so the recency order roughly survives a restart
+        List<Path> existing;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            existing = files.filter(Files::isRegularFile)
+                    .filter(path -> !path.startsWith(staging))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+        }
+        synchronized (this) {
+            for (Path path : existing) {
+                long size = Files.size(path);
+                entries.put(path.getFileName().toString(), size);
+                totalBytes += size;
+            }
+            evictOverBudget();
+        }
+        log.info("Object cache at '{}' holds {} entries ({} bytes, budget {}).", root, entries.size(), totalBytes, maxBytes);
+    }
+
+    public boolean accepts(String key, long size) {
+        return enabled && key != null && size <= maxObjectBytes && size <= maxBytes;
+    }
+
+    // Whole cached entry, or empty on a miss
+    public Optional<FileDownload> open(String key) {
+        return open(key, 0, -1);
+    }
+
+    /**
+     * Opens {@code length} bytes of a cached entry starting at {@code position} (-1 for the rest of
+     * it), or returns empty on a miss. The open channel keeps the content readable even if the
+     * entry is evicted while it is being sent.
+     */
+    public Optional<FileDownload> open(String key, long position, long length) {
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+        Long size;
+        synchronized (this) {
+            size = entries.get(key); // also marks the entry as recently used
+        }
+        if (size == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            FileChannel channel = FileChannel.open(pathFor(key), StandardOpenOption.READ);
+            hits.incrementAndGet();
+            return Optional.of(new FileDownload(channel, position, length >= 0 ? length : size - position));
+        } catch (NoSuchFileException e) {
+            // Evicted since the lookup
+            misses.incrementAndGet();
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to open cached object {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keeps a completed fetch of {@code key} as a cache entry, moving the file into place. Used as
+     * the {@link SingleFlightFetcher.Completion} of downloads; returns false, leaving the file to
+     * the caller, if the content cannot be cached or the disk is short of space.
+     */
+    public boolean offer(String key, long size, Path completed) throws IOException {
+        if (!accepts(key, size) || root.toFile().getUsableSpace() < MIN_FREE_BYTES) {
+            return false;
+        }
+        commit(key, size, completed);
+        fills.incrementAndGet();
+        return true;
+    }
+
+    public Stats stats() {
+        synchronized (this) {
+            return new Stats(hits.get(), misses.get(), fills.get(), evictions.get(), entries.size(), totalBytes, maxBytes);
+        }
+    }
+
+    private void commit(String key, long size, Path temp) throws IOException {
+        Path target = pathFor(key);
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        synchronized (this) {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            evictOverBudget();
+        }
+        log.debug("Cached object {} ({} bytes).", key, size);
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            evictions.incrementAndGet();
+            deleteQuietly(pathFor(entry.getKey()));
+            log.debug("Evicted cached object {} ({} bytes).", entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Two-level layout keeps directories small; keys are URL-safe base64 content hashes
+    private Path pathFor(String key) {
+        return root.resolve(key.length() > 2 ? key.substring(0, 2) : "_").resolve(key);
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file '{}': {}", path, e.getMessage());
+        }
+    }
+}
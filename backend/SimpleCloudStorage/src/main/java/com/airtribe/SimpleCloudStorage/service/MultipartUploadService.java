@@ -0,0 +1,201 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.exceptionHandler.FileStorageException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads large objects to S3 as multipart uploads, sending parts in parallel on the
+ * shared transfer pool. At most {@code concurrency} + 1 part buffers exist per upload.
+ */
+@Slf4j
+@Service
+public class MultipartUploadService {
+
+    // S3 rejects parts smaller than 5MB (except the last one)
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${file.upload.multipart.threshold:16777216}")
+    private long threshold;
+
+    @Value("${file.upload.multipart.part-size:8388608}")
+    private int partSize;
+
+    @Value("${file.upload.multipart.concurrency:4}")
+    private int concurrency;
+
+    private final AmazonS3 s3Client;
+    private final ThreadPoolTaskExecutor transferExecutor;
+
+    public MultipartUploadService(AmazonS3 s3Client,
+                                  @Qualifier("s3TransferExecutor") ThreadPoolTaskExecutor transferExecutor) {
+        this.s3Client = s3Client;
+        this.transferExecutor = transferExecutor;
+    }
+
+    // Unknown sizes (-1) go through the multipart path, which falls back to a single PUT for short streams
+    public boolean shouldUseMultipart(long size) {
+        return size < 0 || size >= threshold;
+    }
+
+    public int getPartSize() {
+        return Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    public String initiate(String s3Key, ObjectMetadata metadata) {
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucket, s3Key, toInitiateMetadata(metadata));
+        String uploadId = s3Client.initiateMultipartUpload(request).getUploadId();
+        log.info("Initiated multipart upload {} for key '{}'.", uploadId, s3Key);
+        return uploadId;
+    }
+
+    public PartETag uploadPart(String s3Key, String uploadId, int partNumber, byte[] data, int length) {
+        UploadPartRequest request = new UploadPartRequest()
+                .withBucketName(bucket)
+                .withKey(s3Key)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withInputStream(new ByteArrayInputStream(data, 0, length))
+                .withPartSize(length);
+        return s3Client.uploadPart(request).getPartETag();
+    }
+
+    public void complete(String s3Key, String uploadId, List<PartETag> partETags) {
+        s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, s3Key, uploadId, partETags));
+        log.info("Completed multipart upload {} for key '{}' with {} parts.", uploadId, s3Key, partETags.size());
+    }
+
+    public void abort(String s3Key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, s3Key, uploadId));
+            log.warn("Aborted multipart upload {} for key '{}'.", uploadId, s3Key);
+        } catch (AmazonClientException e) {
+            // Leftover parts are cleaned up by the bucket lifecycle rule
+            log.error("Failed to abort multipart upload {} for key '{}': {}", uploadId, s3Key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the stream part by part and uploads the parts concurrently. Streams shorter than one
+     * part are sent as a single PUT. Any failure aborts the upload so no orphaned parts are billed.
+     */
+    public void upload(String s3Key, InputStream inputStream, ObjectMetadata metadata) throws IOException {
+        int size = getPartSize();
+        byte[] firstPart = new byte[size];
+        int firstLength = readFully(inputStream, firstPart);
+        if (firstLength < size) {
+            ObjectMetadata singleMetadata = toInitiateMetadata(metadata);
+            singleMetadata.setContentLength(firstLength);
+            s3Client.putObject(new PutObjectRequest(bucket, s3Key, new ByteArrayInputStream(firstPart, 0, firstLength), singleMetadata));
+            log.info("Uploaded '{}' with a single PUT ({} bytes).", s3Key, firstLength);
+            return;
+        }
+
+        String uploadId = initiate(s3Key, metadata);
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<PartETag>> parts = new ArrayList<>();
+        try {
+            byte[] buffer = firstPart;
+            int length = firstLength;
+            int partNumber = 1;
+            while (length > 0) {
+                parts.add(submitPart(s3Key, uploadId, partNumber++, buffer, length, permits));
+                failFast(parts);
+                if (length < size) {
+                    break;
+                }
+                // Wait for a free slot before allocating the next buffer to keep memory bounded
+                permits.acquire();
+                permits.release();
+                buffer = new byte[size];
+                length = readFully(inputStream, buffer);
+            }
+
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+            complete(s3Key, uploadId, partETags);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parts.forEach(part -> part.cancel(true));
+            abort(s3Key, uploadId);
+            throw new FileStorageException("Multipart upload interrupted for key " + s3Key, e);
+        } catch (ExecutionException e) {
+            parts.forEach(part -> part.cancel(true));
+            abort(s3Key, uploadId);
+            throw new FileStorageException("Multipart upload failed for key " + s3Key, e.getCause());
+        } catch (IOException | RuntimeException e) {
+            parts.forEach(part -> part.cancel(true));
+            abort(s3Key, uploadId);
+            throw e;
+        }
+    }
+
+    private Future<PartETag> submitPart(String s3Key, String uploadId, int partNumber, byte[] buffer, int length,
+                                        Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            return transferExecutor.submit(() -> {
+                try {
+                    return uploadPart(s3Key, uploadId, partNumber, buffer, length);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Surface a failed part before reading (and buffering) more of the stream
+    private void failFast(List<Future<PartETag>> parts) throws ExecutionException, InterruptedException {
+        for (Future<PartETag> part : parts) {
+            if (part.isDone()) {
+                part.get();
+            }
+        }
+    }
+
+    private ObjectMetadata toInitiateMetadata(ObjectMetadata source) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(source.getContentType());
+        metadata.setCacheControl(source.getCacheControl());
+        if (source.getContentEncoding() != null) {
+            metadata.setContentEncoding(source.getContentEncoding());
+        }
+        metadata.setUserMetadata(source.getUserMetadata());
+        return metadata;
+    }
+
+    static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
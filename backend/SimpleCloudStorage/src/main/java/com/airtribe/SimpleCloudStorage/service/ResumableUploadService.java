@@ -0,0 +1,359 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.dto.UploadSessionRequest;
+import com.airtribe.SimpleCloudStorage.dto.UploadSessionResponse;
+import com.airtribe.SimpleCloudStorage.entity.AnalyticsEvent;
+import com.airtribe.SimpleCloudStorage.entity.Blob;
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.Folder;
+import com.airtribe.SimpleCloudStorage.entity.UploadPart;
+import com.airtribe.SimpleCloudStorage.entity.UploadSession;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.repository.AnalyticsEventRepository;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import com.airtribe.SimpleCloudStorage.repository.FolderRepository;
+import com.airtribe.SimpleCloudStorage.repository.UploadPartRepository;
+import com.airtribe.SimpleCloudStorage.repository.UploadSessionRepository;
+import com.airtribe.SimpleCloudStorage.service.processing.ProcessingQueue;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable chunked uploads. Every chunk is one S3 multipart part, so a dropped connection
+ * only costs the chunk in flight. Chunks must start on a part boundary and may arrive in any order.
+ * Sessions without a chunk for {@code file.upload.resumable.expiry-hours} are aborted and their file
+ * row removed.
+ */
+@Slf4j
+@Service
+@Transactional
+public class ResumableUploadService {
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${file.upload.resumable.expiry-hours:24}")
+    private long expiryHours;
+
+    private final AmazonS3 s3Client;
+    private final FileRepository fileRepository;
+    private final FolderRepository folderRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final AnalyticsEventRepository analyticsEventRepository;
+    private final MultipartUploadService multipartUploadService;
+    private final FileStorageService fileStorageService;
+    private final BlobStorageService blobStorageService;
+    private final ProcessingQueue processingQueue;
+    private final AutocompleteIndex autocompleteIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    public ResumableUploadService(AmazonS3 s3Client, FileRepository fileRepository, FolderRepository folderRepository,
+                                  UploadSessionRepository uploadSessionRepository, UploadPartRepository uploadPartRepository,
+                                  AnalyticsEventRepository analyticsEventRepository,
+                                  MultipartUploadService multipartUploadService, FileStorageService fileStorageService,
+                                  BlobStorageService blobStorageService, ProcessingQueue processingQueue,
+                                  AutocompleteIndex autocompleteIndex, TransactionTemplate transactionTemplate,
+                                  CacheManager cacheManager) {
+        this.s3Client = s3Client;
+        this.fileRepository = fileRepository;
+        this.folderRepository = folderRepository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.analyticsEventRepository = analyticsEventRepository;
+        this.multipartUploadService = multipartUploadService;
+        this.fileStorageService = fileStorageService;
+        this.blobStorageService = blobStorageService;
+        this.processingQueue = processingQueue;
+        this.autocompleteIndex = autocompleteIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    public UploadSessionResponse createSession(UploadSessionRequest request, int userId) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new IllegalArgumentException("File name must not be empty");
+        }
+        if (request.getFileSize() <= 0) {
+            throw new IllegalArgumentException("File size must be positive");
+        }
+        if (request.getFileHash() == null || request.getFileHash().isBlank()) {
+            throw new IllegalArgumentException("File hash must be provided");
+        }
+
+        // Parts are assembled under a fresh blob key and adopted into the blob store on finalize
+        String s3Key = blobStorageService.newBlobKey();
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(request.getFileType());
+        metadata.addUserMetadata("uploaded-by", String.valueOf(userId));
+        metadata.setCacheControl("max-age=31536000");
+        String uploadId = multipartUploadService.initiate(s3Key, metadata);
+
+        Folder folder = request.getFolderId() != null ? folderRepository.findById(request.getFolderId()).orElse(null) : null;
+
+        // The row exists from the start so the upload shows up as UPLOADING; downloads reject it until finalize
+        File fileEntity = File.builder()
+                .userId(userId)
+                .folder(folder)
+                .fileName(request.getFileName())
+                .s3_key(s3Key)
+                .fileSize(request.getFileSize())
+                .fileType(request.getFileType())
+                .filePath(s3Client.getUrl(bucket, s3Key).toString())
+                .isPublic(Boolean.TRUE.equals(request.getIsPublic()))
+                .status(FileStatus.UPLOADING)
+                .fileHash(request.getFileHash())
+                .build();
+        File savedFile = fileRepository.save(fileEntity);
+        autocompleteIndex.fileAdded(userId, savedFile.getFileName());
+
+        UploadSession session = UploadSession.builder()
+                .sessionId(UUID.randomUUID().toString())
+                .userId(userId)
+                .file(savedFile)
+                .s3Key(s3Key)
+                .uploadId(uploadId)
+                .totalSize(request.getFileSize())
+                .partSize(multipartUploadService.getPartSize())
+                .build();
+        uploadSessionRepository.save(session);
+        log.info("Created upload session {} for file ID: {} ({} bytes)", session.getSessionId(), savedFile.getFile_id(), request.getFileSize());
+
+        return toResponse(session);
+    }
+
+    public UploadSessionResponse getSession(String sessionId, int userId) throws FileNotFoundException {
+        return toResponse(findSession(sessionId, userId));
+    }
+
+    /**
+     * Stores one chunk as the S3 part at {@code offset}. Re-sending a chunk replaces the earlier part,
+     * so clients can safely retry anything they did not get an acknowledgement for.
+     * <p>
+     * Runs without a transaction: reading the chunk from a slow client and sending it to S3 must not
+     * hold a database connection (WebConfig also keeps this request out of open-in-view). Only
+     * recording the part takes a short transaction at the end.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public UploadSessionResponse uploadChunk(String sessionId, int userId, long offset, InputStream content)
+            throws FileNotFoundException, IOException {
+        UploadSession session = findSession(sessionId, userId);
+        int partSize = session.getPartSize();
+
+        if (offset < 0 || offset >= session.getTotalSize() || offset % partSize != 0) {
+            throw new IllegalArgumentException("Chunk offset must be a multiple of " + partSize + " within the file");
+        }
+
+        int partNumber = (int) (offset / partSize) + 1;
+        int expectedLength = (int) Math.min(partSize, session.getTotalSize() - offset);
+
+        byte[] buffer = new byte[expectedLength];
+        int length = MultipartUploadService.readFully(content, buffer);
+        if (length != expectedLength || content.read() != -1) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be exactly " + expectedLength + " bytes");
+        }
+
+        PartETag partETag = multipartUploadService.uploadPart(session.getS3Key(), session.getUploadId(), partNumber, buffer, length);
+
+        UploadSessionResponse response = transactionTemplate.execute(status -> uploadSessionRepository.findById(sessionId)
+                .map(current -> {
+                    UploadPart part = uploadPartRepository.findBySessionAndPartNumber(current, partNumber)
+                            .orElseGet(() -> {
+                                UploadPart newPart = UploadPart.builder().session(current).partNumber(partNumber).build();
+                                current.getParts().add(newPart);
+                                return newPart;
+                            });
+                    part.setEtag(partETag.getETag());
+                    part.setSize(length);
+                    uploadPartRepository.save(part);
+                    // Last activity, which keeps the session from expiring
+                    current.setUpdated_at(new Date());
+                    current.getParts().sort((a, b) -> Integer.compare(a.getPartNumber(), b.getPartNumber()));
+                    return toResponse(current);
+                })
+                .orElse(null));
+        if (response == null) {
+            // Completed, aborted or expired while the chunk was in flight
+            throw new FileNotFoundException("Upload session not found: " + sessionId);
+        }
+        log.debug("Upload session {}: stored part {} ({} bytes)", sessionId, partNumber, length);
+        return response;
+    }
+
+    /**
+     * Assembles the parts and checks the result against the declared hash.
+     * <p>
+     * Runs without a transaction: completing the multipart upload and hashing the assembled object
+     * read the whole file back from S3, which must not hold a database connection (WebConfig also keeps
+     * this request out of open-in-view). Reading the parts and recording the outcome each take a short
+     * transaction. On a hash mismatch the file row goes along with the session, since the object it
+     * would point at is deleted; the returned, detached file is marked ERROR.
+     */
+    @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public File completeSession(String sessionId, int userId) throws FileNotFoundException {
+        UploadSession session = findSession(sessionId, userId);
+        String s3Key = session.getS3Key();
+        String declaredHash = session.getFile().getFileHash();
+
+        List<PartETag> partETags = transactionTemplate.execute(status -> uploadSessionRepository.findById(sessionId)
+                .map(current -> {
+                    if (current.getParts().size() != current.getPartCount() || current.getReceivedBytes() != current.getTotalSize()) {
+                        throw new IllegalStateException("Upload is incomplete: received " + current.getReceivedBytes()
+                                + " of " + current.getTotalSize() + " bytes");
+                    }
+                    return current.getParts().stream()
+                            .map(part -> new PartETag(part.getPartNumber(), part.getEtag()))
+                            .collect(Collectors.toList());
+                })
+                .orElse(null));
+        if (partETags == null) {
+            throw new FileNotFoundException("Upload session not found: " + sessionId);
+        }
+        multipartUploadService.complete(s3Key, session.getUploadId(), partETags);
+
+        // The declared hash decides which blob the file shares, so it has to match the bytes received
+        String actualHash = blobStorageService.hashObject(s3Key);
+        boolean matches = actualHash.equals(declaredHash);
+
+        File file = transactionTemplate.execute(status -> uploadSessionRepository.findById(sessionId)
+                .map(current -> matches ? finishSession(current, actualHash, userId) : rejectSession(current))
+                .orElse(null));
+        if (file == null) {
+            // Aborted or expired while the object was assembled, so nothing will adopt it
+            blobStorageService.deleteStaged(s3Key);
+            throw new FileNotFoundException("Upload session not found: " + sessionId);
+        }
+        if (!matches) {
+            blobStorageService.deleteStaged(s3Key);
+            log.warn("Upload session {}: declared hash {} does not match content hash {}", sessionId, declaredHash, actualHash);
+        }
+        return file;
+    }
+
+    private File finishSession(UploadSession session, String hash, int userId) {
+        File file = session.getFile();
+        Blob blob = blobStorageService.adopt(hash, session.getTotalSize(), session.getS3Key());
+        file.setBlob(blob);
+        file.setS3_key(blob.getS3Key());
+        file.setFilePath(s3Client.getUrl(bucket, blob.getS3Key()).toString());
+        file.setStatus(processingQueue.initialStatus());
+        File savedFile = fileRepository.save(file);
+        fileStorageService.recordVersion(savedFile, blob, userId);
+        processingQueue.enqueue(savedFile);
+        uploadSessionRepository.delete(session);
+
+        AnalyticsEvent uploadEvent = new AnalyticsEvent();
+        uploadEvent.setUserId(userId);
+        uploadEvent.setEventType("UPLOAD");
+        uploadEvent.setTimestamp(Instant.now());
+        uploadEvent.setFileSize(savedFile.getFileSize());
+        uploadEvent.setFileType(savedFile.getFileType());
+        uploadEvent.setFileId(savedFile.getFile_id());
+        analyticsEventRepository.save(uploadEvent);
+        log.info("Analytics: Logged UPLOAD event for file ID: {} (resumable session {})", savedFile.getFile_id(), session.getSessionId());
+
+        return savedFile;
+    }
+
+    private File rejectSession(UploadSession session) {
+        File file = session.getFile();
+        uploadSessionRepository.delete(session);
+        fileRepository.delete(file);
+        autocompleteIndex.fileRemoved(session.getUserId(), file.getFileName(), List.of());
+        file.setStatus(FileStatus.ERROR);
+        return file;
+    }
+
+    @CacheEvict(value = {"files", "searchResults"}, allEntries = true)
+    public void abortSession(String sessionId, int userId) throws FileNotFoundException {
+        UploadSession session = findSession(sessionId, userId);
+        multipartUploadService.abort(session.getS3Key(), session.getUploadId());
+
+        File file = session.getFile();
+        uploadSessionRepository.delete(session);
+        fileRepository.delete(file);
+        autocompleteIndex.fileRemoved(userId, file.getFileName(), List.of());
+        log.info("Aborted upload session {} and removed file ID: {}", sessionId, file.getFile_id());
+    }
+
+    /**
+     * Aborts sessions that have not received a chunk within the expiry window: the rows go first, in a
+     * short transaction each, then the S3 multipart upload, so a chunk arriving meanwhile finds no
+     * session instead of a half-deleted one.
+     */
+    @Scheduled(fixedDelayString = "${file.upload.resumable.cleanup-interval-ms:3600000}")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void expireSessions() {
+        Date cutoff = new Date(System.currentTimeMillis() - expiryHours * 3_600_000L);
+        int removed = 0;
+        for (String sessionId : uploadSessionRepository.findIdleSessionIds(cutoff)) {
+            UploadSession expired = transactionTemplate.execute(status -> uploadSessionRepository.findById(sessionId)
+                    .filter(session -> session.getUpdated_at().before(cutoff))
+                    .map(session -> {
+                        File file = session.getFile();
+                        uploadSessionRepository.delete(session);
+                        fileRepository.delete(file);
+                        autocompleteIndex.fileRemoved(session.getUserId(), file.getFileName(), List.of());
+                        return session;
+                    })
+                    .orElse(null));
+            if (expired != null) {
+                multipartUploadService.abort(expired.getS3Key(), expired.getUploadId());
+                log.info("Expired upload session {} idle since {}", sessionId, expired.getUpdated_at());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            // The UPLOADING rows were part of cached listings
+            for (String name : List.of("files", "searchResults")) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        }
+    }
+
+    private UploadSession findSession(String sessionId, int userId) throws FileNotFoundException {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new FileNotFoundException("Upload session not found: " + sessionId));
+        if (session.getUserId() != userId) {
+            throw new AccessDeniedException("Upload session belongs to another user");
+        }
+        return session;
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+                session.getSessionId(),
+                session.getFile().getFile_id(),
+                session.getTotalSize(),
+                session.getPartSize(),
+                session.getReceivedBytes(),
+                session.getFile().getStatus().name()
+        );
+    }
+}
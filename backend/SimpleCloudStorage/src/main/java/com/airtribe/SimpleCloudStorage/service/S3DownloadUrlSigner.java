@@ -0,0 +1,41 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+// Presigned GETs are computed locally from the credentials; no request is made to S3 here
+@Component
+@ConditionalOnProperty(name = "file.download.signer", havingValue = "s3", matchIfMissing = true)
+public class S3DownloadUrlSigner implements DownloadUrlSigner {
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucket;
+
+    private final AmazonS3 s3Client;
+
+    public S3DownloadUrlSigner(AmazonS3 s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    @Override
+    public SignedUrl sign(String s3Key, String contentDisposition, String contentType, String contentEncoding, Duration ttl) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        ResponseHeaderOverrides overrides = new ResponseHeaderOverrides()
+                .withContentDisposition(contentDisposition)
+                .withContentType(contentType)
+                .withContentEncoding(contentEncoding);
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucket, s3Key, HttpMethod.GET)
+                .withExpiration(Date.from(expiresAt))
+                .withResponseHeaders(overrides);
+        return new SignedUrl(s3Client.generatePresignedUrl(request).toString(), expiresAt);
+    }
+}
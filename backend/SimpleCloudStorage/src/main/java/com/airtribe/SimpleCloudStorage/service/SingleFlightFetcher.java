@@ -0,0 +1,436 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Coalesces concurrent reads of the same object into one fetch from storage, whether or not the
+ * object ends up cached.
+ * <p>
+ * A read with nobody else reading the key streams straight from storage, as an uncached download
+ * always did, unless the object is going to be cached. Only then, or once a second reader arrives
+ * while that direct read is still running, is the object fetched in the background into a spool
+ * file; every reader of the key from then on follows that file as it grows. A completed fetch is
+ * offered to its {@link Completion} (the disk cache moves it into place) and is otherwise deleted;
+ * readers still following it keep their open copy. When the last reader closes before the fetch
+ * completes, the fetch is cancelled and its spool file deleted.
+ * <p>
+ * Fetches never wait for a thread: when the pool is busy, or the spool disk short of space, the
+ * reader streams directly instead. Keys must identify the content itself (a content hash, or an
+ * object key plus version), so a reader can never join a fetch of different bytes.
+ */
+@Slf4j
+@Component
+public class SingleFlightFetcher {
+
+    // Headroom left on the spool disk; a fetch that would eat into it is not started
+    private static final long MIN_FREE_BYTES = 64L * 1024 * 1024;
+
+    @Value("${file.fetch.spool-dir:${file.cache.dir:${file.upload-dir:./uploads}/cache}/tmp}")
+    private String directory;
+
+    private final ThreadPoolTaskExecutor fetchExecutor;
+
+    private Path spool;
+
+    // Both guarded by this
+    private final Map<String, Fetch> inFlight = new HashMap<>();
+    private final Map<String, Integer> directReads = new HashMap<>();
+
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong direct = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public SingleFlightFetcher(@Qualifier("cacheFillExecutor") ThreadPoolTaskExecutor fetchExecutor) {
+        this.fetchExecutor = fetchExecutor;
+    }
+
+    // Takes over a completed spool file; returns false to leave it to be deleted
+    @FunctionalInterface
+    public interface Completion {
+        boolean take(String key, long size, Path spooled) throws IOException;
+    }
+
+    /**
+     * Counters since startup: shared fetches started, reads that joined one already in flight, reads
+     * streamed straight from storage, and fetches that failed or lost all their readers.
+     */
+    public record Stats(long fetches, long coalesced, long direct, long failures, long cancelled, int inFlight) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        spool = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(spool);
+
+        // Leftovers of fetches that were interrupted by a crash
+        try (Stream<Path> leftovers = Files.list(spool)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * Opens the content for {@code key}: joins a fetch already in flight, starts a shared fetch
+     * from {@code source} if the object is to be cached ({@code completion} is not null) or is
+     * already being read, and otherwise streams {@code source} directly. Returns once the source
+     * has been opened, so storage errors still surface before a response is committed.
+     */
+    public InputStream open(String key, long size, Callable<InputStream> source, Completion completion) throws IOException {
+        Fetch fetch;
+        FileChannel channel;
+        boolean leader = false;
+        synchronized (this) {
+            fetch = inFlight.get(key);
+            if (fetch == null && (completion != null || directReads.containsKey(key))) {
+                fetch = start(key, size, source, completion);
+                leader = fetch != null;
+            }
+            if (fetch == null) {
+                directReads.merge(key, 1, Integer::sum);
+                channel = null;
+            } else {
+                // Opened under the lock: a fetch is only handed off or deleted after it leaves the map
+                try {
+                    channel = FileChannel.open(fetch.temp, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    if (leader) {
+                        fetch.cancel();
+                    }
+                    throw e;
+                }
+                fetch.readers++;
+            }
+        }
+
+        if (fetch == null) {
+            direct.incrementAndGet();
+            try {
+                return new DirectRead(key, call(source));
+            } catch (IOException | RuntimeException e) {
+                directReadClosed(key);
+                throw e;
+            }
+        }
+        if (!leader) {
+            coalesced.incrementAndGet();
+            log.debug("Coalesced read of {} onto the fetch already in flight.", key);
+        }
+        return fetch.newReader(channel);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(fetches.get(), coalesced.get(), direct.get(), failures.get(), cancelled.get(), inFlight.size());
+    }
+
+    // Caller holds the lock; returns null when the fetch cannot start right away
+    private Fetch start(String key, long size, Callable<InputStream> source, Completion completion) throws IOException {
+        if (spool.toFile().getUsableSpace() < size + MIN_FREE_BYTES) {
+            log.debug("No spool space to share the fetch of {}; reading it directly.", key);
+            return null;
+        }
+        Fetch fetch = new Fetch(key, size, source, completion, Files.createTempFile(spool, "fetch-", ".tmp"));
+        try {
+            fetchExecutor.execute(fetch);
+        } catch (RejectedExecutionException e) {
+            // Waiting for a thread would hold the download up behind whole other objects
+            deleteQuietly(fetch.temp);
+            log.debug("Fetch pool is busy; reading {} directly.", key);
+            return null;
+        }
+        inFlight.put(key, fetch);
+        fetches.incrementAndGet();
+        return fetch;
+    }
+
+    private synchronized void directReadClosed(String key) {
+        directReads.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete spool file '{}': {}", path, e.getMessage());
+        }
+    }
+
+    private static InputStream call(Callable<InputStream> source) throws IOException {
+        try {
+            return source.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    // Storage errors keep their type (e.g. AmazonS3Exception) so callers handle them as before
+    private static void rethrow(Exception failure) throws IOException {
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw failure instanceof IOException io ? io : new IOException(failure);
+    }
+
+    // A read streamed straight from storage; registered so a second reader of the key starts a shared fetch
+    private class DirectRead extends FilterInputStream {
+
+        private final String key;
+        private boolean closed;
+
+        DirectRead(String key, InputStream in) {
+            super(in);
+            this.key = key;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                directReadClosed(key);
+            }
+        }
+    }
+
+    /**
+     * One fetch of an object into a spool file, with any number of readers following it. Progress
+     * is published under the fetch's monitor; readers read the file outside of it. Open channels
+     * keep the content readable after the file is moved or deleted. Reader counts, cancellation
+     * and hand-off are guarded by the fetcher's lock.
+     */
+    private class Fetch implements Runnable {
+
+        private final String key;
+        private final long expectedSize;
+        private final Callable<InputStream> source;
+        private final Completion completion;
+        private final Path temp;
+
+        private int readers;
+        private boolean finished;
+        private volatile boolean cancelRequested;
+
+        private boolean opened;
+        private long written;
+        private boolean complete;
+        private Exception failure;
+
+        Fetch(String key, long expectedSize, Callable<InputStream> source, Completion completion, Path temp) {
+            this.key = key;
+            this.expectedSize = expectedSize;
+            this.source = source;
+            this.completion = completion;
+            this.temp = temp;
+        }
+
+        @Override
+        public void run() {
+            try (InputStream in = call(source);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                publish(0, false);
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    if (cancelRequested) {
+                        // Closing the source aborts the storage connection rather than draining it
+                        deleteQuietly(temp);
+                        cancelled.incrementAndGet();
+                        log.debug("Shared fetch of {} cancelled after {} bytes; no readers left.", key, total);
+                        return;
+                    }
+                    if (total + n > expectedSize) {
+                        throw new IOException("Object " + key + " is larger than its recorded size of " + expectedSize);
+                    }
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    total += n;
+                    publish(total, false);
+                }
+                if (total != expectedSize) {
+                    throw new EOFException("Object " + key + " ended after " + total + " of " + expectedSize + " bytes");
+                }
+                if (completion != null) {
+                    out.force(true);
+                }
+                publish(total, true);
+                finish(total);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        // Handed off before leaving the map, so a reader arriving meanwhile finds the spool or the cache entry
+        private void finish(long total) {
+            boolean taken = false;
+            synchronized (SingleFlightFetcher.this) {
+                finished = true;
+                try {
+                    taken = completion != null && completion.take(key, total, temp);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to hand off the fetch of {}: {}", key, e.getMessage());
+                }
+                inFlight.remove(key, this);
+            }
+            if (!taken) {
+                deleteQuietly(temp);
+            }
+        }
+
+        private synchronized void publish(long written, boolean complete) {
+            this.opened = true;
+            this.written = written;
+            this.complete = complete;
+            notifyAll();
+        }
+
+        void fail(Exception e) {
+            // Finished before readers are woken, so their closing does not count as a cancellation
+            synchronized (SingleFlightFetcher.this) {
+                finished = true;
+                inFlight.remove(key, this);
+            }
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+            deleteQuietly(temp);
+            if (cancelRequested) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            failures.incrementAndGet();
+            log.warn("Shared fetch of {} failed: {}", key, e.getMessage());
+        }
+
+        // Caller holds the fetcher's lock; the fetch thread stops at its next read and deletes the spool
+        void cancel() {
+            cancelRequested = true;
+            inFlight.remove(key, this);
+        }
+
+        private void readerClosed() {
+            synchronized (SingleFlightFetcher.this) {
+                if (--readers == 0 && !finished) {
+                    cancel();
+                }
+            }
+        }
+
+        // Waits for the fetch to start, so a missing object fails the caller rather than a reader
+        InputStream newReader(FileChannel channel) throws IOException {
+            try {
+                synchronized (this) {
+                    while (!opened && failure == null) {
+                        wait();
+                    }
+                    if (!opened) {
+                        rethrow(failure);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                channel.close();
+                readerClosed();
+                throw new InterruptedIOException("Interrupted while waiting for " + key);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                readerClosed();
+                throw e;
+            }
+            return new Reader(channel);
+        }
+
+        private class Reader extends InputStream {
+
+            private final FileChannel channel;
+            private long position;
+            private boolean closed;
+
+            Reader(FileChannel channel) {
+                this.channel = channel;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int n = read(single, 0, 1);
+                return n == -1 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                long available;
+                synchronized (Fetch.this) {
+                    while (position >= written && !complete && failure == null) {
+                        try {
+                            Fetch.this.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for " + key);
+                        }
+                    }
+                    if (failure != null) {
+                        rethrow(failure);
+                    }
+                    available = written - position;
+                }
+                if (available <= 0) {
+                    return -1;
+                }
+                int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+                if (n > 0) {
+                    position += n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    channel.close();
+                } finally {
+                    readerClosed();
+                }
+            }
+        }
+    }
+}
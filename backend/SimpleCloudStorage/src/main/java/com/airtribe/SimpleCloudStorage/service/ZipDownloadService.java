@@ -0,0 +1,242 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.Folder;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.exceptionHandler.FileUnavailableException;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import com.airtribe.SimpleCloudStorage.repository.FolderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams several files as one ZIP archive straight into the response. Nothing is staged on disk:
+ * entries are compressed as they are read, and the next few files are opened in the background
+ * while the current one is written so S3 latency does not add up per file.
+ */
+@Slf4j
+@Service
+public class ZipDownloadService {
+
+    @Value("${file.download.zip.max-files:10000}")
+    private int maxFiles;
+
+    // Files opened ahead of the one being written
+    @Value("${file.download.zip.prefetch:2}")
+    private int prefetch;
+
+    private final FileRepository fileRepository;
+    private final FolderRepository folderRepository;
+    private final FilePermissionService filePermissionService;
+    private final FileStorageService fileStorageService;
+    private final CompressionPolicy compressionPolicy;
+    private final ThreadPoolTaskExecutor downloadExecutor;
+
+    public ZipDownloadService(FileRepository fileRepository, FolderRepository folderRepository,
+                              FilePermissionService filePermissionService, FileStorageService fileStorageService,
+                              CompressionPolicy compressionPolicy,
+                              @Qualifier("s3DownloadExecutor") ThreadPoolTaskExecutor downloadExecutor) {
+        this.fileRepository = fileRepository;
+        this.folderRepository = folderRepository;
+        this.filePermissionService = filePermissionService;
+        this.fileStorageService = fileStorageService;
+        this.compressionPolicy = compressionPolicy;
+        this.downloadExecutor = downloadExecutor;
+    }
+
+    public record ZipEntrySource(int fileId, String path, String fileType, long size, Date modified) {
+    }
+
+    public record ZipArchive(String fileName, int userId, List<ZipEntrySource> entries) {
+    }
+
+    /**
+     * Entries for a folder and all of its subfolders, laid out under the folder's name. Files the
+     * user cannot read, or that are not available yet, are left out.
+     */
+    public ZipArchive folderArchive(int folderId, int userId) throws FileNotFoundException {
+        Folder root = folderRepository.findById(folderId)
+                .orElseThrow(() -> new FileNotFoundException("Folder not found with ID: " + folderId));
+        if (root.getUser_id() != userId) {
+            throw new AccessDeniedException("No permission to access this folder");
+        }
+
+        Map<Integer, Folder> folders = folderRepository.findSubtree(folderId).stream()
+                .collect(Collectors.toMap(Folder::getFolder_id, Function.identity()));
+        Map<Integer, String> paths = new HashMap<>();
+        for (Integer id : folders.keySet()) {
+            folderPath(id, folderId, folders, paths);
+        }
+
+        List<File> files = fileRepository.findByFolderIds(folders.keySet()).stream()
+                .filter(file -> file.getStatus() == FileStatus.AVAILABLE)
+                .filter(file -> filePermissionService.canAccessFile(userId, file))
+                .toList();
+        checkSize(files.size());
+
+        Set<String> used = new HashSet<>();
+        List<ZipEntrySource> entries = new ArrayList<>(files.size());
+        for (File file : files) {
+            String directory = paths.get(file.getFolder().getFolder_id());
+            entries.add(entry(file, uniqueName(directory + "/", file.getFileName(), used)));
+        }
+        return new ZipArchive(paths.get(folderId) + ".zip", userId, entries);
+    }
+
+    /**
+     * Entries for an explicit selection, side by side at the top of the archive. Unlike a folder,
+     * every requested file has to be readable, otherwise nothing is sent.
+     */
+    public ZipArchive selectionArchive(List<Integer> fileIds, int userId) throws FileNotFoundException {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new IllegalArgumentException("No files selected");
+        }
+        checkSize(fileIds.size());
+
+        Map<Integer, File> found = fileRepository.findAllById(new LinkedHashSet<>(fileIds)).stream()
+                .collect(Collectors.toMap(File::getFile_id, Function.identity()));
+        Set<String> used = new HashSet<>();
+        List<ZipEntrySource> entries = new ArrayList<>(found.size());
+        for (Integer fileId : new LinkedHashSet<>(fileIds)) {
+            File file = found.get(fileId);
+            if (file == null) {
+                throw new FileNotFoundException("File not found with ID: " + fileId);
+            }
+            if (!filePermissionService.canAccessFile(userId, file)) {
+                throw new AccessDeniedException("No permission to access file " + fileId);
+            }
+            if (file.getStatus() != FileStatus.AVAILABLE) {
+                throw new FileUnavailableException("File " + fileId + " is currently " + file.getStatus().getDisplayName());
+            }
+            entries.add(entry(file, uniqueName("", file.getFileName(), used)));
+        }
+        return new ZipArchive("files.zip", userId, entries);
+    }
+
+    /**
+     * Writes the archive. Up to {@code prefetch} files past the current one are opened on the
+     * download pool, so their first bytes are already on the way when the writer gets to them.
+     */
+    public void writeZip(ZipArchive archive, OutputStream out) throws IOException {
+        List<ZipEntrySource> entries = archive.entries();
+        Iterator<ZipEntrySource> pending = entries.iterator();
+        Deque<Future<FileDownload>> opened = new ArrayDeque<>();
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            for (ZipEntrySource source : entries) {
+                while (opened.size() <= prefetch && pending.hasNext()) {
+                    int fileId = pending.next().fileId();
+                    opened.add(downloadExecutor.submit(() -> fileStorageService.openDownload(
+                            fileStorageService.downloadMetadata(fileId, archive.userId()), false)));
+                }
+
+                ZipEntry entry = new ZipEntry(source.path());
+                if (source.modified() != null) {
+                    entry.setTime(source.modified().getTime());
+                }
+                // Media and archives are already compressed; storing them saves CPU and changes little
+                zip.setLevel(compressionPolicy.isCompressible(source.fileType())
+                        ? compressionPolicy.getLevel()
+                        : Deflater.NO_COMPRESSION);
+                zip.putNextEntry(entry);
+                try (FileDownload download = await(opened.poll(), source)) {
+                    download.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+            zip.finish();
+            out.flush();
+        } finally {
+            // Client went away or a file failed: release whatever was opened ahead
+            opened.forEach(this::closeQuietly);
+        }
+    }
+
+    private FileDownload await(Future<FileDownload> future, ZipEntrySource source) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening " + source.path());
+        } catch (ExecutionException e) {
+            log.error("Failed to open file {} for a ZIP download: {}", source.fileId(), e.getCause().getMessage(), e.getCause());
+            throw new IOException("Failed to open " + source.path(), e.getCause());
+        }
+    }
+
+    private void closeQuietly(Future<FileDownload> future) {
+        try {
+            future.get().close();
+        } catch (Exception e) {
+            log.debug("Ignoring error while releasing a prefetched download: {}", e.getMessage());
+        }
+    }
+
+    private void checkSize(int count) {
+        if (count > maxFiles) {
+            throw new IllegalArgumentException("A ZIP download is limited to " + maxFiles + " files");
+        }
+    }
+
+    private ZipEntrySource entry(File file, String path) {
+        Date modified = file.getUpdated_at() != null ? file.getUpdated_at() : file.getCreated_at();
+        return new ZipEntrySource(file.getFile_id(), path, file.getFileType(), file.getFileSize(), modified);
+    }
+
+    // Path of a folder relative to (and including) the root of the download
+    private String folderPath(Integer id, int rootId, Map<Integer, Folder> folders, Map<Integer, String> paths) {
+        String known = paths.get(id);
+        if (known != null) {
+            return known;
+        }
+        Folder folder = folders.get(id);
+        String name = safeName(folder.getFolderName(), "folder-" + id);
+        String path = id == rootId || folder.getParent_id() == null || !folders.containsKey(folder.getParent_id())
+                ? name
+                : folderPath(folder.getParent_id(), rootId, folders, paths) + "/" + name;
+        paths.put(id, path);
+        return path;
+    }
+
+    // Two files with the same name in one directory become "name (1).ext", "name (2).ext", ...
+    private String uniqueName(String directory, String fileName, Set<String> used) {
+        String name = safeName(fileName, "file");
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        String candidate = directory + name;
+        for (int i = 1; !used.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+            candidate = directory + base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+
+    // Entry names must not be able to escape the extraction directory
+    private String safeName(String name, String fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        String cleaned = name.replace('/', '_').replace('\\', '_').trim();
+        if (cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..")) {
+            return fallback;
+        }
+        return cleaned;
+    }
+}
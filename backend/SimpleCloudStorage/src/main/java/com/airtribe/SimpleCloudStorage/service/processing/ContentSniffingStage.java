@@ -0,0 +1,106 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+// Detects the real type from the leading bytes instead of trusting the client's Content-Type
+@Slf4j
+@Component
+@Order(20)
+public class ContentSniffingStage implements FileProcessingStage {
+
+    private record Signature(int offset, byte[] magic, String type) {
+        Signature(int offset, String hex, String type) {
+            this(offset, hex(hex), type);
+        }
+    }
+
+    private static final Signature[] SIGNATURES = {
+            new Signature(0, "89504E470D0A1A0A", "image/png"),
+            new Signature(0, "FFD8FF", "image/jpeg"),
+            new Signature(0, "474946383761", "image/gif"),
+            new Signature(0, "474946383961", "image/gif"),
+            new Signature(8, "57454250", "image/webp"), // RIFF....WEBP
+            new Signature(0, "424D", "image/bmp"),
+            new Signature(0, "25504446", "application/pdf"),
+            new Signature(0, "504B0304", "application/zip"),
+            new Signature(0, "1F8B", "application/gzip"),
+            new Signature(0, "377ABCAF271C", "application/x-7z-compressed"),
+            new Signature(0, "52617221", "application/vnd.rar"),
+            new Signature(4, "66747970", "video/mp4"), // ....ftyp
+            new Signature(0, "494433", "audio/mpeg"),
+            new Signature(0, "4F676753", "audio/ogg"),
+            new Signature(0, "7F454C46", "application/x-executable"),
+            new Signature(0, "4D5A", "application/x-msdownload"),
+    };
+
+    private static final int HEADER_SIZE = 512;
+
+    @Override
+    public String name() {
+        return "content-sniffing";
+    }
+
+    @Override
+    public void process(ProcessingContext context) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(context.getContent())) {
+            header = in.readNBytes(HEADER_SIZE);
+        }
+
+        String detected = detect(header);
+        if (detected == null) {
+            return;
+        }
+        context.setDetectedType(detected);
+        context.getMetadata().put("content.detectedType", detected);
+
+        String declared = context.getDeclaredType();
+        if (declared != null && !declared.isBlank() && !declared.equals("application/octet-stream")
+                && !declared.equalsIgnoreCase(detected)) {
+            log.warn("File ID {}: declared type {} but content looks like {}", context.getFileId(), declared, detected);
+            context.getMetadata().put("content.declaredType", declared);
+        }
+    }
+
+    static String detect(byte[] header) {
+        for (Signature signature : SIGNATURES) {
+            int end = signature.offset() + signature.magic().length;
+            if (header.length >= end
+                    && Arrays.equals(header, signature.offset(), end, signature.magic(), 0, signature.magic().length)) {
+                return signature.type();
+            }
+        }
+        return looksLikeText(header) ? "text/plain" : null;
+    }
+
+    private static boolean looksLikeText(byte[] header) {
+        if (header.length == 0) {
+            return false;
+        }
+        for (byte b : header) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        // Valid UTF-8 decodes without replacement characters (a cut multi-byte tail is tolerated)
+        String decoded = new String(header, StandardCharsets.UTF_8);
+        int replacements = (int) decoded.chars().filter(c -> c == '\uFFFD').count();
+        return replacements <= 1;
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
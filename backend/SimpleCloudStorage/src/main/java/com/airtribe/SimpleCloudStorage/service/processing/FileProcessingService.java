@@ -0,0 +1,231 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.ProcessingJob;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.enums.ProcessingJobStatus;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import com.airtribe.SimpleCloudStorage.repository.ProcessingJobRepository;
+import com.airtribe.SimpleCloudStorage.service.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs queued post-upload processing on a worker pool. Each job downloads the content once, runs
+ * the stages in order and then flips the file from PROCESSING to AVAILABLE, QUARANTINED or ERROR.
+ * Failures are retried with exponential backoff; jobs held by a crashed worker are picked up again
+ * once they time out.
+ */
+@Slf4j
+@Service
+public class FileProcessingService {
+
+    @Value("${file.processing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.processing.workers:4}")
+    private int workers;
+
+    @Value("${file.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${file.processing.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${file.processing.job-timeout-ms:600000}")
+    private long jobTimeoutMs;
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final FileRepository fileRepository;
+    private final FileStorageService fileStorageService;
+    private final List<FileProcessingStage> stages; // in @Order order
+    private final ThreadPoolTaskExecutor processingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    // Jobs handed to the pool and not finished yet; polling never claims more than the pool can run
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public FileProcessingService(ProcessingJobRepository processingJobRepository, FileRepository fileRepository,
+                                 FileStorageService fileStorageService, List<FileProcessingStage> stages,
+                                 @Qualifier("processingExecutor") ThreadPoolTaskExecutor processingExecutor,
+                                 TransactionTemplate transactionTemplate, CacheManager cacheManager) {
+        this.processingJobRepository = processingJobRepository;
+        this.fileRepository = fileRepository;
+        this.fileStorageService = fileStorageService;
+        this.stages = stages;
+        this.processingExecutor = processingExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    @Scheduled(fixedDelayString = "${file.processing.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int free = workers - inFlight.get();
+        if (free <= 0) {
+            return;
+        }
+
+        List<Long> claimed = transactionTemplate.execute(status -> {
+            int released = processingJobRepository.releaseStale(new Date(System.currentTimeMillis() - jobTimeoutMs));
+            if (released > 0) {
+                log.warn("Processing: re-queued {} job(s) whose worker stopped responding", released);
+            }
+            List<ProcessingJob> jobs = processingJobRepository.claimDue(free);
+            Date now = new Date();
+            for (ProcessingJob job : jobs) {
+                job.setStatus(ProcessingJobStatus.RUNNING);
+                job.setLockedAt(now);
+                job.setAttempts(job.getAttempts() + 1);
+            }
+            return jobs.stream().map(ProcessingJob::getId).toList();
+        });
+
+        for (Long jobId : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                processingExecutor.execute(() -> {
+                    try {
+                        run(jobId);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Left RUNNING; the timeout hands it out again
+                inFlight.decrementAndGet();
+                log.error("Processing: could not schedule job {}", jobId, e);
+            }
+        }
+    }
+
+    private void run(Long jobId) {
+        ProcessingJob job = processingJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        File file = fileRepository.findById(job.getFileId()).orElse(null);
+        if (file == null) {
+            // Deleted while queued
+            complete(jobId, null);
+            return;
+        }
+
+        Path content = null;
+        try {
+            content = Files.createTempFile("processing-" + file.getFile_id() + "-", ".tmp");
+            try (InputStream in = fileStorageService.openContent(file)) {
+                Files.copy(in, content, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            ProcessingContext context = new ProcessingContext(file.getFile_id(), file.getFileName(),
+                    file.getFileType(), file.getFileHash(), file.getFileSize(), content);
+            for (FileProcessingStage stage : stages) {
+                stage.process(context);
+                if (context.isRejected()) {
+                    log.info("Processing: file ID {} rejected by {}: {}", file.getFile_id(), stage.name(), context.getRejectionReason());
+                    break;
+                }
+            }
+            complete(jobId, context);
+        } catch (Exception e) {
+            log.error("Processing: job {} for file ID {} failed (attempt {}): {}", jobId, file.getFile_id(), job.getAttempts(), e.getMessage(), e);
+            fail(jobId, e);
+        } finally {
+            if (content != null) {
+                try {
+                    Files.deleteIfExists(content);
+                } catch (IOException e) {
+                    log.warn("Processing: could not delete temp file {}", content);
+                }
+            }
+        }
+    }
+
+    private void complete(Long jobId, ProcessingContext context) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProcessingJob job = processingJobRepository.findById(jobId).orElseThrow();
+            job.setStatus(ProcessingJobStatus.DONE);
+            job.setLockedAt(null);
+            processingJobRepository.save(job);
+            if (context == null) {
+                return;
+            }
+
+            File file = fileRepository.findById(context.getFileId()).orElse(null);
+            // Content replaced while this job ran: the newer job decides the status
+            if (file == null || !context.getFileHash().equals(file.getFileHash())) {
+                return;
+            }
+
+            if (file.getMetadata() == null) {
+                file.setMetadata(new HashMap<>());
+            }
+            file.getMetadata().putAll(context.getMetadata());
+            String declared = file.getFileType();
+            if (context.getDetectedType() != null
+                    && (declared == null || declared.isBlank() || declared.equals("application/octet-stream"))) {
+                file.setFileType(context.getDetectedType());
+            }
+            file.setStatus(context.isRejected() ? context.getRejectedStatus() : FileStatus.AVAILABLE);
+            fileRepository.save(file);
+            log.info("Processing: file ID {} is now {}", file.getFile_id(), file.getStatus());
+        });
+        evictListings();
+    }
+
+    private void fail(Long jobId, Exception error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProcessingJob job = processingJobRepository.findById(jobId).orElseThrow();
+            job.setLockedAt(null);
+            job.setLastError(truncate(error.toString()));
+            if (job.getAttempts() < maxAttempts) {
+                long delay = retryBackoffMs << Math.min(job.getAttempts() - 1, 10);
+                job.setStatus(ProcessingJobStatus.PENDING);
+                job.setNextAttemptAt(new Date(System.currentTimeMillis() + delay));
+            } else {
+                job.setStatus(ProcessingJobStatus.FAILED);
+                fileRepository.findById(job.getFileId()).ifPresent(file -> {
+                    file.setStatus(FileStatus.ERROR);
+                    fileRepository.save(file);
+                });
+                log.error("Processing: giving up on file ID {} after {} attempts", job.getFileId(), job.getAttempts());
+            }
+            processingJobRepository.save(job);
+        });
+        evictListings();
+    }
+
+    private void evictListings() {
+        for (String name : List.of("files", "searchResults")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -0,0 +1,15 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import java.io.IOException;
+
+/**
+ * One step of post-upload processing. Stages are Spring beans run in {@code @Order} order; a stage
+ * rejects the file through {@link ProcessingContext#reject}, which ends the pipeline. Exceptions
+ * are treated as transient and the whole job is retried later.
+ */
+public interface FileProcessingStage {
+
+    String name();
+
+    void process(ProcessingContext context) throws IOException;
+}
@@ -0,0 +1,52 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+// Confirms the stored bytes still match the recorded hash, which dedup and downloads rely on
+@Slf4j
+@Component
+@Order(10)
+public class HashVerificationStage implements FileProcessingStage {
+
+    @Override
+    public String name() {
+        return "hash-verification";
+    }
+
+    @Override
+    public void process(ProcessingContext context) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        long size = 0;
+        try (InputStream in = Files.newInputStream(context.getContent())) {
+            byte[] buffer = new byte[65536];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                size += bytesRead;
+            }
+        }
+
+        String actualHash = Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        if (size != context.getFileSize() || !actualHash.equals(context.getFileHash())) {
+            log.warn("File ID {}: stored content ({} bytes, hash {}) does not match the record ({} bytes, hash {})",
+                    context.getFileId(), size, actualHash, context.getFileSize(), context.getFileHash());
+            context.reject(FileStatus.ERROR, "Stored content does not match its hash");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Development stand-in: only recognises the EICAR test file, so quarantine can be exercised locally
+@Component
+@ConditionalOnProperty(name = "file.processing.scanner", havingValue = "local", matchIfMissing = true)
+public class LocalMalwareScanner implements MalwareScanner {
+
+    private static final String EICAR_MARKER = "EICAR-STANDARD-ANTIVIRUS-TEST-FILE";
+
+    @Override
+    public ScanResult scan(Path content, String fileName) throws IOException {
+        // The EICAR file is at most 128 bytes and must start at the beginning of the file
+        byte[] head;
+        try (InputStream in = Files.newInputStream(content)) {
+            head = in.readNBytes(128);
+        }
+        if (new String(head, StandardCharsets.US_ASCII).contains(EICAR_MARKER)) {
+            return new ScanResult(false, "EICAR-Test-File");
+        }
+        return ScanResult.ok();
+    }
+}
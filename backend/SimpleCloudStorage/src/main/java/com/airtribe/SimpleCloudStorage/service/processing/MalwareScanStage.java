@@ -0,0 +1,33 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+@Order(30)
+@RequiredArgsConstructor
+public class MalwareScanStage implements FileProcessingStage {
+
+    private final MalwareScanner malwareScanner;
+
+    @Override
+    public String name() {
+        return "malware-scan";
+    }
+
+    @Override
+    public void process(ProcessingContext context) throws IOException {
+        MalwareScanner.ScanResult result = malwareScanner.scan(context.getContent(), context.getFileName());
+        if (!result.clean()) {
+            log.warn("File ID {} quarantined: {}", context.getFileId(), result.threat());
+            context.getMetadata().put("scan.threat", result.threat());
+            context.reject(FileStatus.QUARANTINED, "Malware detected: " + result.threat());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Hook for an external malware scanner (ClamAV, a cloud scanning API, ...). Provide a bean of this
+ * type and set {@code file.processing.scanner} to anything other than {@code local} to replace the stub.
+ */
+public interface MalwareScanner {
+
+    record ScanResult(boolean clean, String threat) {
+        public static ScanResult ok() {
+            return new ScanResult(true, null);
+        }
+    }
+
+    ScanResult scan(Path content, String fileName) throws IOException;
+}
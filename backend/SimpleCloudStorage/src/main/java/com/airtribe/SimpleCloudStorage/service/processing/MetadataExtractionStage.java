@@ -0,0 +1,78 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+// Records cheap, searchable facts about the content: image dimensions, text line counts
+@Component
+@Order(40)
+public class MetadataExtractionStage implements FileProcessingStage {
+
+    @Override
+    public String name() {
+        return "metadata-extraction";
+    }
+
+    @Override
+    public void process(ProcessingContext context) throws IOException {
+        String type = context.getDetectedType() != null ? context.getDetectedType() : context.getDeclaredType();
+        if (type == null) {
+            return;
+        }
+        if (type.startsWith("image/")) {
+            extractImageSize(context);
+        } else if (type.startsWith("text/")) {
+            countLines(context);
+        }
+    }
+
+    // Reads only the image header, never the decoded pixels
+    private void extractImageSize(ProcessingContext context) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(context.getContent().toFile())) {
+            if (in == null) {
+                return;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                context.getMetadata().put("image.width", String.valueOf(reader.getWidth(0)));
+                context.getMetadata().put("image.height", String.valueOf(reader.getHeight(0)));
+                context.getMetadata().put("image.format", reader.getFormatName().toLowerCase());
+            } catch (IOException e) {
+                // Truncated or malformed headers are not worth retrying the job for
+                context.getMetadata().put("image.error", "unreadable header");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void countLines(ProcessingContext context) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(context.getContent()), decoder))) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        context.getMetadata().put("text.lines", String.valueOf(lines));
+    }
+}
@@ -0,0 +1,48 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// State shared by the stages of one job. The content is downloaded once to a local temp file.
+@Getter
+public class ProcessingContext {
+
+    private final int fileId;
+    private final String fileName;
+    private final String declaredType;
+    private final String fileHash;
+    private final long fileSize;
+    private final Path content;
+
+    // Set by content sniffing when the bytes reveal the real type
+    @Setter
+    private String detectedType;
+
+    private final Map<String, String> metadata = new LinkedHashMap<>();
+
+    private FileStatus rejectedStatus;
+    private String rejectionReason;
+
+    public ProcessingContext(int fileId, String fileName, String declaredType, String fileHash, long fileSize, Path content) {
+        this.fileId = fileId;
+        this.fileName = fileName;
+        this.declaredType = declaredType;
+        this.fileHash = fileHash;
+        this.fileSize = fileSize;
+        this.content = content;
+    }
+
+    public void reject(FileStatus status, String reason) {
+        this.rejectedStatus = status;
+        this.rejectionReason = reason;
+    }
+
+    public boolean isRejected() {
+        return rejectedStatus != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.airtribe.SimpleCloudStorage.service.processing;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.ProcessingJob;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.enums.ProcessingJobStatus;
+import com.airtribe.SimpleCloudStorage.repository.ProcessingJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Enqueues post-upload processing. Jobs are rows written in the caller's transaction, so a job
+ * exists exactly when its file does and survives restarts.
+ */
+@Service
+public class ProcessingQueue {
+
+    @Value("${file.processing.enabled:true}")
+    private boolean enabled;
+
+    private final ProcessingJobRepository processingJobRepository;
+
+    public ProcessingQueue(ProcessingJobRepository processingJobRepository) {
+        this.processingJobRepository = processingJobRepository;
+    }
+
+    // Status for freshly stored content: downloads are refused until processing has finished
+    public FileStatus initialStatus() {
+        return enabled ? FileStatus.PROCESSING : FileStatus.AVAILABLE;
+    }
+
+    public void enqueue(File file) {
+        enqueueAll(List.of(file));
+    }
+
+    public void enqueueAll(List<File> files) {
+        if (!enabled || files.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        processingJobRepository.saveAll(files.stream()
+                .map(file -> ProcessingJob.builder()
+                        .fileId(file.getFile_id())
+                        .status(ProcessingJobStatus.PENDING)
+                        .nextAttemptAt(now)
+                        .build())
+                .toList());
+    }
+}
@@ -0,0 +1,63 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.springframework.http.HttpRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resolves a {@code Range} header against a representation length (RFC 9110, section 14).
+ */
+public final class ByteRanges {
+
+    // After coalescing; more fragmented requests are answered with the full body
+    public static final int MAX_RANGES = 16;
+
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start + 1;
+        }
+    }
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Returns the satisfiable ranges sorted and with overlapping or adjacent ranges merged.
+     * Returns null when the header should be ignored (malformed or too many ranges) and an
+     * empty list when nothing is satisfiable, which calls for a 416.
+     */
+    public static List<Range> resolve(String header, long length) {
+        List<HttpRange> requested;
+        try {
+            requested = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (requested.isEmpty()) {
+            return null;
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        for (HttpRange range : requested) {
+            long start = range.getRangeStart(length);
+            if (start >= length) {
+                continue; // unsatisfiable on its own; the others may still be served
+            }
+            ranges.add(new Range(start, Math.min(range.getRangeEnd(length), length - 1)));
+        }
+        ranges.sort(Comparator.comparingLong(Range::start));
+
+        List<Range> merged = new ArrayList<>();
+        for (Range range : ranges) {
+            Range last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.start() <= last.end() + 1) {
+                merged.set(merged.size() - 1, new Range(last.start(), Math.max(last.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+}
@@ -0,0 +1,69 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import com.airtribe.SimpleCloudStorage.dto.DownloadMetadata;
+import com.airtribe.SimpleCloudStorage.dto.FileResponse;
+import com.airtribe.SimpleCloudStorage.entity.File;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Validators for conditional requests (RFC 9110, section 8.8). File tags come from the stored
+ * SHA-256, so they are known without reading the content.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    // Strong validator: the content hash only changes when the bytes do
+    public static String of(File file) {
+        return tag(file.getFileHash(), null);
+    }
+
+    public static String of(DownloadMetadata file) {
+        return tag(file.fileHash(), null);
+    }
+
+    // Content sent with a coding applied is a different set of bytes and needs its own tag
+    public static String of(DownloadMetadata file, String contentEncoding) {
+        return tag(file.fileHash(), contentEncoding);
+    }
+
+    // HTTP dates have second precision
+    public static long lastModified(DownloadMetadata file) {
+        Date modified = file.lastModified();
+        return modified != null ? modified.getTime() / 1000 * 1000 : -1;
+    }
+
+    private static String tag(String fileHash, String contentEncoding) {
+        if (fileHash == null) {
+            return null;
+        }
+        return contentEncoding != null ? "\"" + fileHash + "-" + contentEncoding + "\"" : "\"" + fileHash + "\"";
+    }
+
+    /**
+     * Weak tag for a listing, derived from the entries rather than the serialized body. Adding,
+     * removing, renaming or changing any file changes it.
+     */
+    public static String ofListing(List<FileResponse> files) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (FileResponse file : files) {
+                String entry = file.getFileId() + "\0" + file.getFilename() + "\0" + file.getFilesize()
+                        + "\0" + file.isPublic() + "\0" + file.getFiletype() + "\0" + file.getEtag()
+                        + "\0" + (file.getUpdatedAt() != null ? file.getUpdatedAt().getTime() : "")
+                        + "\0" + file.getTags() + "\n";
+                digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            }
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
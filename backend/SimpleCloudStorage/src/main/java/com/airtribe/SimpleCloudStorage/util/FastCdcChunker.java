@@ -0,0 +1,111 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Content-defined chunking in the style of FastCDC (gear rolling hash with normalized chunking).
+ * Cut points depend only on the bytes around them, so an edit only changes the chunks it touches
+ * and identical regions of two versions produce identical chunks.
+ * <p>
+ * The gear table is generated from a fixed seed; changing it would change every cut point and
+ * defeat deduplication against already stored chunks.
+ */
+public class FastCdcChunker {
+
+    private static final long[] GEAR = buildGearTable(0x5EEDCDC0FFEEL);
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskSmall; // stricter mask below the average size
+    private final long maskLarge; // looser mask above it, pulling chunk sizes towards the average
+
+    private final InputStream source;
+    private final byte[] buffer;
+    private int buffered;
+    private boolean eof;
+
+    public FastCdcChunker(InputStream source, int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException("Chunk sizes must satisfy 0 < min <= avg <= max");
+        }
+        this.source = source;
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = 63 - Long.numberOfLeadingZeros(avgSize);
+        this.maskSmall = topBits(bits + 1);
+        this.maskLarge = topBits(Math.max(1, bits - 1));
+        this.buffer = new byte[maxSize];
+    }
+
+    /**
+     * Returns the next chunk, or null at the end of the stream. The returned array is a copy
+     * and may be handed to another thread.
+     */
+    public byte[] next() throws IOException {
+        fill();
+        if (buffered == 0) {
+            return null;
+        }
+        int cut = findCut(buffered);
+        byte[] chunk = Arrays.copyOf(buffer, cut);
+        System.arraycopy(buffer, cut, buffer, 0, buffered - cut);
+        buffered -= cut;
+        return chunk;
+    }
+
+    private void fill() throws IOException {
+        while (!eof && buffered < maxSize) {
+            int read = source.read(buffer, buffered, maxSize - buffered);
+            if (read == -1) {
+                eof = true;
+            } else {
+                buffered += read;
+            }
+        }
+    }
+
+    private int findCut(int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int normal = Math.min(avgSize, length);
+        long fingerprint = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[buffer[i] & 0xFF];
+            if ((fingerprint & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < length; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[buffer[i] & 0xFF];
+            if ((fingerprint & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    // The left shift ages bytes out through the high bits, so the mask tests the high end
+    private static long topBits(int count) {
+        return count >= 64 ? -1L : ((1L << count) - 1) << (64 - count);
+    }
+
+    // splitmix64, spelled out so the table never depends on a JDK implementation detail
+    private static long[] buildGearTable(long seed) {
+        long[] table = new long[256];
+        long state = seed;
+        for (int i = 0; i < table.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            table[i] = z ^ (z >>> 31);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,61 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a keyset-paged listing: the sort key and id of the last file on the previous page.
+ * Clients get it as an opaque string and hand it back unchanged; it is only valid for the sort it
+ * was issued for.
+ */
+public record FileCursor(FileSortOrder sort, Object key, int fileId) {
+
+    public static FileCursor after(File file, FileSortOrder sort) {
+        Object key = switch (sort) {
+            case NAME -> file.getFileName();
+            case CREATED -> file.getCreated_at();
+            case SIZE -> file.getFileSize();
+            case RELEVANCE -> throw new IllegalArgumentException("A relevance cursor is built from the search rank");
+        };
+        return new FileCursor(sort, key, file.getFile_id());
+    }
+
+    public String encode() {
+        String value = switch (sort) {
+            case NAME -> (String) key;
+            case CREATED -> String.valueOf(((Date) key).getTime());
+            case SIZE, RELEVANCE -> String.valueOf(key);
+        };
+        String raw = sort.name() + "|" + fileId + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FileCursor decode(String cursor, FileSortOrder sort) {
+        String[] parts;
+        try {
+            // The name comes last, so a '|' inside it does not matter
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        try {
+            int fileId = Integer.parseInt(parts[1]);
+            Object key = switch (sort) {
+                case NAME -> parts[2];
+                case CREATED -> new Date(Long.parseLong(parts[2]));
+                case SIZE -> Long.parseLong(parts[2]);
+                case RELEVANCE -> Double.parseDouble(parts[2]);
+            };
+            return new FileCursor(sort, key, fileId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * Reading side of gzip: yields the gzip encoding of the source stream, so compressed content
+ * can be handed to an upload without buffering it or running a separate writer thread.
+ * The output is a standard single-member gzip file (RFC 1952).
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final CheckedInputStream checked;
+    private final Deflater deflater;
+    private final DeflaterInputStream deflated;
+
+    private final byte[] trailer = new byte[8];
+    private int headerPos;
+    private int trailerPos = -1; // -1 until the deflate stream has ended
+    private long bytesProduced;
+
+    public GzipCompressingInputStream(InputStream source, int level) {
+        this.checked = new CheckedInputStream(source, new CRC32());
+        this.deflater = new Deflater(level, true);
+        this.deflated = new DeflaterInputStream(checked, deflater, 65536);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n;
+        if (headerPos < HEADER.length) {
+            n = Math.min(len, HEADER.length - headerPos);
+            System.arraycopy(HEADER, headerPos, b, off, n);
+            headerPos += n;
+        } else if (trailerPos < 0) {
+            n = deflated.read(b, off, len);
+            if (n == -1) {
+                writeTrailer();
+                return read(b, off, len);
+            }
+        } else if (trailerPos < trailer.length) {
+            n = Math.min(len, trailer.length - trailerPos);
+            System.arraycopy(trailer, trailerPos, b, off, n);
+            trailerPos += n;
+        } else {
+            return -1;
+        }
+        bytesProduced += n;
+        return n;
+    }
+
+    // Size of the gzip output so far; the stored size once the stream is exhausted
+    public long getBytesProduced() {
+        return bytesProduced;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            deflated.close();
+        } finally {
+            deflater.end(); // not done by DeflaterInputStream for a caller-supplied Deflater
+        }
+    }
+
+    private void writeTrailer() {
+        long crc = checked.getChecksum().getValue();
+        long size = deflater.getBytesRead(); // ISIZE is the input length modulo 2^32
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (crc >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        trailerPos = 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * Reads a sequence of streams back to back, opening each one only when the previous one is
+ * exhausted. Unlike {@link java.io.SequenceInputStream}, closing it does not open (and close)
+ * the streams that were never reached.
+ */
+public class LazyConcatInputStream extends InputStream {
+
+    private final Iterator<Supplier<InputStream>> sources;
+    private InputStream current;
+
+    public LazyConcatInputStream(Iterator<Supplier<InputStream>> sources) {
+        this.sources = sources;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (advance()) {
+            int b = current.read();
+            if (b != -1) {
+                return b;
+            }
+            closeCurrent();
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (advance()) {
+            int n = current.read(b, off, len);
+            if (n > 0) {
+                return n;
+            }
+            if (n == -1) {
+                closeCurrent();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+    }
+
+    private boolean advance() {
+        if (current == null && sources.hasNext()) {
+            current = sources.next().get();
+        }
+        return current != null;
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            InputStream finished = current;
+            current = null;
+            finished.close();
+        }
+    }
+}
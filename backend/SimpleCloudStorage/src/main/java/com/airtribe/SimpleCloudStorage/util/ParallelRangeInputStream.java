@@ -0,0 +1,137 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reads an object as consecutive byte ranges fetched concurrently, returning the bytes in order.
+ * At most {@code concurrency} parts are fetched ahead of the reader, so memory use is bounded by
+ * {@code (concurrency + 1) * partSize} whatever the object size.
+ */
+public class ParallelRangeInputStream extends InputStream {
+
+    @FunctionalInterface
+    public interface RangeFetcher {
+        // Bytes start..end, both inclusive
+        InputStream open(long start, long end) throws IOException;
+    }
+
+    private final RangeFetcher fetcher;
+    private final long length;
+    private final int partSize;
+    private final int concurrency;
+    private final AsyncTaskExecutor executor;
+
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private long nextOffset;
+    private byte[] current;
+    private int position;
+    private boolean closed;
+
+    public ParallelRangeInputStream(RangeFetcher fetcher, long length, int partSize, int concurrency,
+                                    AsyncTaskExecutor executor) {
+        if (partSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("Part size and concurrency must be positive");
+        }
+        this.fetcher = fetcher;
+        this.length = length;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.executor = executor;
+        fillWindow();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextPart()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextPart()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        // Interrupted fetches close their streams, which aborts the S3 connections
+        inFlight.forEach(part -> part.cancel(true));
+        inFlight.clear();
+    }
+
+    private boolean nextPart() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        Future<byte[]> next = inFlight.poll();
+        if (next == null) {
+            return false;
+        }
+        current = await(next);
+        position = 0;
+        fillWindow();
+        return true;
+    }
+
+    private void fillWindow() {
+        while (inFlight.size() < concurrency && nextOffset < length) {
+            long start = nextOffset;
+            int size = (int) Math.min(partSize, length - start);
+            inFlight.add(executor.submit(() -> fetch(start, size)));
+            nextOffset += size;
+        }
+    }
+
+    private byte[] fetch(long start, int size) throws IOException {
+        try (InputStream in = fetcher.open(start, start + size - 1)) {
+            byte[] part = in.readNBytes(size);
+            if (part.length != size) {
+                throw new EOFException("Range at " + start + " ended after " + part.length + " of " + size + " bytes");
+            }
+            return part;
+        }
+    }
+
+    private byte[] await(Future<byte[]> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while waiting for a range");
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Range fetch failed", e.getCause());
+        } catch (CancellationException e) {
+            throw new IOException("Stream closed", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+
+/**
+ * Wraps an S3 object stream so that closing it early aborts the HTTP connection instead of
+ * draining the rest of the object; a client that disconnects halfway through a 5GB download
+ * should not make us read the remaining bytes from S3.
+ */
+public class S3ContentStream extends FilterInputStream {
+
+    private final S3ObjectInputStream s3Stream;
+    private boolean eof;
+
+    public S3ContentStream(S3ObjectInputStream s3Stream) {
+        super(s3Stream);
+        this.s3Stream = s3Stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        eof |= b == -1;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        eof |= n == -1;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!eof) {
+            s3Stream.abort();
+        }
+        s3Stream.close();
+    }
+}
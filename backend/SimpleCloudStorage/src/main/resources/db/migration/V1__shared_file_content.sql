@@ -0,0 +1,18 @@
+-- Files may now share content (blob store), so drop the old unique constraints on file_hash and s3_key.
+-- Hibernate named them itself, hence the lookup by column.
+DO $$
+DECLARE
+    constraint_row record;
+BEGIN
+    FOR constraint_row IN
+        SELECT DISTINCT con.conname
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attnum = ANY (con.conkey)
+        WHERE rel.relname = 'file'
+          AND con.contype = 'u'
+          AND att.attname IN ('file_hash', 's3_key')
+    LOOP
+        EXECUTE format('ALTER TABLE file DROP CONSTRAINT %I', constraint_row.conname);
+    END LOOP;
+END $$;
@@ -0,0 +1,2 @@
+-- Chunked versions have no single blob; their content is listed in file_chunk.
+ALTER TABLE file_version ALTER COLUMN blob_id DROP NOT NULL;
@@ -0,0 +1,10 @@
+-- Substring and fuzzy search on file and tag names (FileRepositoryImpl#searchPage).
+-- pg_trgm lets GIN indexes answer LIKE '%...%' and the word-similarity operator <%;
+-- btree_gin lets the file index narrow by owner in the same index scan.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX IF NOT EXISTS idx_file_owner_name_trgm ON file USING gin (user_id, lower(file_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_tag_name_trgm ON tag USING gin (lower(name) gin_trgm_ops);
+-- The join table's key starts with file_id; tag matches are looked up the other way round
+CREATE INDEX IF NOT EXISTS idx_file_tags_tag ON file_tags (tag_id, file_id);
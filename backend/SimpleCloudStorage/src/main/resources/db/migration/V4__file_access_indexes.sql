@@ -0,0 +1,6 @@
+-- Public files for the accessible-files listing (FileRepositoryImpl#findAccessiblePage).
+-- Partial indexes only hold public rows, one per listing order, so a page of the public
+-- catalogue is a short index range however many private files other users store.
+CREATE INDEX IF NOT EXISTS idx_file_public_name ON file (file_name, file_id) WHERE is_public;
+CREATE INDEX IF NOT EXISTS idx_file_public_created ON file (created_at, file_id) WHERE is_public;
+CREATE INDEX IF NOT EXISTS idx_file_public_size ON file (file_size, file_id) WHERE is_public;
@@ -0,0 +1,37 @@
+-- Entity ids moved from IDENTITY columns to pooled sequences (allocationSize 50) so Hibernate can
+-- batch inserts. ddl-auto creates the sequences starting at 1; on an existing database each one is
+-- moved past the ids already handed out, and the old identity default is dropped so nothing else
+-- draws ids from it. content_blob keeps its identity column (see Blob).
+DO $$
+DECLARE
+    target record;
+    max_id bigint;
+BEGIN
+    FOR target IN
+        SELECT * FROM (VALUES
+            ('file_seq', 'file', 'file_id'),
+            ('folder_seq', 'folder', 'folder_id'),
+            ('users_seq', 'users', 'user_id'),
+            ('tag_seq', 'tag', 'id'),
+            ('file_permission_seq', 'file_permission', 'permission_id'),
+            ('analytics_event_seq', 'analytics_event', 'id'),
+            ('file_version_seq', 'file_version', 'version_id'),
+            ('file_chunk_seq', 'file_chunk', 'id'),
+            ('processing_job_seq', 'processing_job', 'id'),
+            ('upload_part_seq', 'upload_part', 'id')
+        ) AS t (seq, tbl, col)
+    LOOP
+        IF to_regclass(target.seq) IS NULL OR to_regclass(target.tbl) IS NULL THEN
+            CONTINUE;
+        END IF;
+
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY IF EXISTS', target.tbl, target.col);
+
+        -- The pooled optimizer hands out (value - 49 .. value), so the sequence must not be behind the table
+        EXECUTE format('SELECT max(%I) FROM %I', target.col, target.tbl) INTO max_id;
+        IF max_id IS NOT NULL AND max_id > (SELECT COALESCE(last_value, 0) FROM pg_sequences
+                                            WHERE schemaname = current_schema() AND sequencename = target.seq) THEN
+            PERFORM setval(target.seq, max_id);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,62 @@
+package com.airtribe.SimpleCloudStorage;
+
+import com.airtribe.SimpleCloudStorage.entity.AnalyticsEvent;
+import com.airtribe.SimpleCloudStorage.repository.AnalyticsEventRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bulk inserts go out in JDBC batches, with ids taken from the sequence a block at a time
+@Slf4j
+@SpringBootTest
+@Transactional
+class BatchInsertTests {
+
+	private static final int ROWS = 1000;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private AnalyticsEventRepository analyticsEventRepository;
+
+	@Test
+	void analyticsEventsAreInsertedInBatches() {
+		List<AnalyticsEvent> events = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			AnalyticsEvent event = new AnalyticsEvent();
+			event.setUserId(-4242);
+			event.setEventType("UPLOAD");
+			event.setTimestamp(Instant.now());
+			event.setFileSize((long) i);
+			event.setFileType("text/plain");
+			events.add(event);
+		}
+
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		long start = System.nanoTime();
+		analyticsEventRepository.saveAll(events);
+		entityManager.flush();
+		long elapsed = System.nanoTime() - start;
+		log.info("Inserted {} analytics events in {} ms ({} rows/s, {} statements)", ROWS, elapsed / 1_000_000,
+				ROWS * 1_000_000_000L / Math.max(elapsed, 1), statistics.getPrepareStatementCount());
+
+		// One sequence call and one batch per 50 rows; row-by-row inserts would need 1000
+		assertTrue(statistics.getPrepareStatementCount() <= 2 * ROWS / 50 + 2,
+				"expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+	}
+}
@@ -0,0 +1,130 @@
+package com.airtribe.SimpleCloudStorage;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.entity.Folder;
+import com.airtribe.SimpleCloudStorage.entity.Tag;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
+import com.airtribe.SimpleCloudStorage.enums.FileStatus;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import com.airtribe.SimpleCloudStorage.repository.FileRepositoryCustom;
+import com.airtribe.SimpleCloudStorage.util.FileCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Listing and search pages cost a fixed number of queries, however many files they hold
+@SpringBootTest
+@Transactional
+class FileListingQueryCountTests {
+
+	private static final int USER_ID = -4242;
+	private static final int FILES = 25;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private FileRepository fileRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		Folder folder = new Folder(0, USER_ID, "listing-test", null, new Date(), null);
+		entityManager.persist(folder);
+		Tag red = new Tag(null, "red", new HashSet<>());
+		Tag blue = new Tag(null, "blue", new HashSet<>());
+		entityManager.persist(red);
+		entityManager.persist(blue);
+		for (int i = 0; i < FILES; i++) {
+			entityManager.persist(File.builder()
+					.userId(USER_ID)
+					.folder(folder)
+					.fileName("report-" + i + ".txt")
+					.fileHash("hash-" + i)
+					.fileSize(i)
+					.fileType("text/plain")
+					.status(FileStatus.AVAILABLE)
+					.tags(new HashSet<>(Set.of(red, blue)))
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+	}
+
+	@Test
+	void accessiblePageLoadsTagsAndFoldersInTwoQueries() {
+		assertQueries(2, () -> fileRepository.findAccessiblePage(USER_ID, FileSortOrder.NAME, null, FILES));
+	}
+
+	@Test
+	void nameSearchPageLoadsTagsAndFoldersInTwoQueries() {
+		List<File> files = assertQueries(2, () -> search("report", null, FileSortOrder.SIZE, null, FILES));
+		assertEquals(FILES, files.size());
+	}
+
+	@Test
+	void tagSearchPageLoadsTagsAndFoldersInTwoQueries() {
+		List<File> files = assertQueries(2, () -> search("no-such-name", "red", FileSortOrder.CREATED, null, FILES));
+		assertEquals(FILES, files.size());
+	}
+
+	@Test
+	void pagesFollowEachOtherWithoutGapsOrRepeats() {
+		List<Integer> seen = new ArrayList<>();
+		FileCursor after = null;
+		List<FileRepositoryCustom.SearchHit> page;
+		do {
+			page = fileRepository.searchPage(USER_ID, "report", null, FileSortOrder.RELEVANCE, after, 10);
+			page.forEach(hit -> seen.add(hit.file().getFile_id()));
+			if (!page.isEmpty()) {
+				FileRepositoryCustom.SearchHit last = page.get(page.size() - 1);
+				String cursor = new FileCursor(FileSortOrder.RELEVANCE, last.rank(), last.file().getFile_id()).encode();
+				after = FileCursor.decode(cursor, FileSortOrder.RELEVANCE);
+			}
+		} while (page.size() == 10);
+
+		assertEquals(FILES, seen.size());
+		assertEquals(FILES, new HashSet<>(seen).size());
+	}
+
+	private List<File> search(String query, String tag, FileSortOrder sort, FileCursor after, int limit) {
+		return fileRepository.searchPage(USER_ID, query, tag, sort, after, limit).stream()
+				.map(FileRepositoryCustom.SearchHit::file)
+				.toList();
+	}
+
+	// Tags and folder of every returned file are read; none of that may cost another statement
+	private List<File> assertQueries(int expected, Supplier<List<File>> listing) {
+		List<File> files = listing.get();
+		files.forEach(file -> {
+			file.getTags().forEach(Tag::getName);
+			if (file.getFolder() != null) {
+				file.getFolder().getFolderName();
+			}
+		});
+		List<File> own = files.stream().filter(file -> file.getUserId() == USER_ID).toList();
+		own.forEach(file -> assertEquals(2, file.getTags().size()));
+
+		assertEquals(expected, statistics.getPrepareStatementCount());
+		return own;
+	}
+}
@@ -0,0 +1,91 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import com.airtribe.SimpleCloudStorage.dto.Suggestion;
+import com.airtribe.SimpleCloudStorage.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AutocompleteIndexTests {
+
+	private static final int USER = 1;
+
+	private FileRepository fileRepository;
+	private AutocompleteIndex index;
+
+	@BeforeEach
+	void setUp() {
+		fileRepository = mock(FileRepository.class);
+		when(fileRepository.findTagNamesByUserId(USER)).thenReturn(List.of());
+		index = new AutocompleteIndex(fileRepository);
+		ReflectionTestUtils.setField(index, "maxUsers", 100);
+		ReflectionTestUtils.setField(index, "refreshSeconds", 300L);
+	}
+
+	@Test
+	void nameMatchesComeBeforeWordMatches() {
+		when(fileRepository.findFileNamesByUserId(USER)).thenReturn(List.of("q3 report.pdf", "report.pdf", "report.pdf", "rent.txt"));
+
+		assertEquals(List.of("report.pdf", "rent.txt", "q3 report.pdf"), values(index.suggest(USER, "re", 10)));
+	}
+
+	@Test
+	void mostUsedThenMostRecentComeFirst() {
+		// Oldest file first, as the repository returns them
+		when(fileRepository.findFileNamesByUserId(USER)).thenReturn(List.of("beta.txt", "budget.xlsx", "beta.txt", "bank.csv"));
+
+		assertEquals(List.of("beta.txt", "bank.csv", "budget.xlsx"), values(index.suggest(USER, "b", 10)));
+	}
+
+	@Test
+	void rankingLooksPastTheFirstMatchesAlphabetically() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			names.add("doc-" + (char) ('a' + i % 26) + i + ".txt");
+		}
+		names.add("doc-zz.txt");
+		names.add("doc-zz.txt");
+		when(fileRepository.findFileNamesByUserId(USER)).thenReturn(names);
+
+		assertEquals("doc-zz.txt", index.suggest(USER, "doc", 5).get(0).value());
+	}
+
+	@Test
+	void changeDuringLoadDiscardsTheLoadedIndex() {
+		when(fileRepository.findFileNamesByUserId(USER)).thenAnswer(invocation -> {
+			// Committed after the names were read, so the loaded index misses it
+			index.fileAdded(USER, "late.txt");
+			return List.of("early.txt");
+		}).thenReturn(List.of("early.txt", "late.txt"));
+
+		index.suggest(USER, "e", 10);
+		assertEquals(List.of("late.txt"), values(index.suggest(USER, "l", 10)));
+		verify(fileRepository, times(2)).findFileNamesByUserId(USER);
+	}
+
+	@Test
+	void changesAfterLoadUpdateTheIndex() {
+		when(fileRepository.findFileNamesByUserId(USER)).thenReturn(List.of("early.txt"));
+		index.suggest(USER, "e", 10);
+
+		index.fileAdded(USER, "late.txt");
+		index.fileRenamed(USER, "early.txt", "earlier.txt");
+
+		assertEquals(List.of("earlier.txt"), values(index.suggest(USER, "e", 10)));
+		assertEquals(List.of("late.txt"), values(index.suggest(USER, "l", 10)));
+		verify(fileRepository, times(1)).findFileNamesByUserId(USER);
+	}
+
+	private static List<String> values(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::value).toList();
+	}
+}
@@ -0,0 +1,280 @@
+package com.airtribe.SimpleCloudStorage.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightFetcherTests {
+
+	private static final int READERS = 8;
+
+	@TempDir
+	Path spool;
+
+	private final ThreadPoolTaskExecutor fetchExecutor = new ThreadPoolTaskExecutor();
+	private final ExecutorService readers = Executors.newFixedThreadPool(READERS);
+	private SingleFlightFetcher fetcher;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		fetchExecutor.setCorePoolSize(2);
+		fetchExecutor.setMaxPoolSize(2);
+		fetchExecutor.setQueueCapacity(0);
+		fetchExecutor.initialize();
+		fetcher = new SingleFlightFetcher(fetchExecutor);
+		ReflectionTestUtils.setField(fetcher, "directory", spool.toString());
+		fetcher.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		readers.shutdownNow();
+		fetchExecutor.shutdown();
+	}
+
+	@Test
+	void uncontendedUncachedReadStreamsDirectly() throws Exception {
+		byte[] data = random(10_000);
+		try (InputStream in = fetcher.open("hash", data.length, () -> new ByteArrayInputStream(data), null)) {
+			assertEquals(0, spoolFiles());
+			assertArrayEquals(data, in.readAllBytes());
+		}
+
+		SingleFlightFetcher.Stats stats = fetcher.stats();
+		assertEquals(1, stats.direct());
+		assertEquals(0, stats.fetches());
+	}
+
+	@Test
+	void readersJoiningADirectReadShareOneFetch() throws Exception {
+		byte[] data = random(300_000);
+		AtomicInteger sourceCalls = new AtomicInteger();
+		CountDownLatch allOpened = new CountDownLatch(READERS - 1);
+
+		try (InputStream first = fetcher.open("hash", data.length, () -> {
+			sourceCalls.incrementAndGet();
+			return new ByteArrayInputStream(data);
+		}, null)) {
+			// Held back until every later reader has joined, so none of them can miss the fetch in flight
+			InputStream gated = new ByteArrayInputStream(data) {
+				@Override
+				public synchronized int read(byte[] b, int off, int len) {
+					await(allOpened);
+					return super.read(b, off, len);
+				}
+			};
+			List<Future<byte[]>> results = new ArrayList<>();
+			for (int i = 1; i < READERS; i++) {
+				results.add(readers.submit(() -> {
+					try (InputStream in = fetcher.open("hash", data.length, () -> {
+						sourceCalls.incrementAndGet();
+						return gated;
+					}, null)) {
+						allOpened.countDown();
+						return in.readAllBytes();
+					}
+				}));
+			}
+			for (Future<byte[]> result : results) {
+				assertArrayEquals(data, result.get(10, TimeUnit.SECONDS));
+			}
+			assertArrayEquals(data, first.readAllBytes());
+		}
+
+		awaitIdle();
+		assertEquals(2, sourceCalls.get(), "the direct read and one shared fetch");
+		SingleFlightFetcher.Stats stats = fetcher.stats();
+		assertEquals(1, stats.direct());
+		assertEquals(1, stats.fetches());
+		assertEquals(READERS - 2, stats.coalesced());
+		assertEquals(0, stats.inFlight());
+		assertEquals(0, spoolFiles(), "spool is deleted when nobody takes it");
+	}
+
+	@Test
+	void busyPoolFallsBackToADirectRead() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<InputStream> blocked = new ArrayList<>();
+		// Occupy both fetch threads
+		for (String key : List.of("a", "b")) {
+			blocked.add(fetcher.open(key, 10, () -> blockedUntil(release), (k, size, spooled) -> false));
+		}
+
+		byte[] data = random(100);
+		try (InputStream in = fetcher.open("c", data.length, () -> new ByteArrayInputStream(data), (k, size, spooled) -> false)) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+		assertEquals(2, fetcher.stats().fetches());
+		assertEquals(1, fetcher.stats().direct());
+
+		release.countDown();
+		for (InputStream in : blocked) {
+			in.close();
+		}
+		awaitIdle();
+	}
+
+	@Test
+	void lastReaderClosingCancelsTheFetch() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		boolean[] taken = {false};
+		InputStream in = fetcher.open("hash", 1_000_000, () -> blockedUntil(release), (key, size, spooled) -> {
+			taken[0] = true;
+			return true;
+		});
+		in.close();
+		assertEquals(0, fetcher.stats().inFlight(), "a cancelled fetch is not joined");
+		release.countDown();
+
+		awaitIdle();
+		assertEquals(1, fetcher.stats().cancelled());
+		assertEquals(0, fetcher.stats().failures());
+		assertFalse(taken[0]);
+		assertEquals(0, spoolFiles());
+	}
+
+	@Test
+	void completedFetchIsHandedToTheCompletion() throws Exception {
+		byte[] data = random(10_000);
+		Path kept = spool.resolveSibling(spool.getFileName() + "-kept");
+		AtomicReference<String> takenKey = new AtomicReference<>();
+
+		try (InputStream in = fetcher.open("hash", data.length, () -> new ByteArrayInputStream(data), (key, size, spooled) -> {
+			takenKey.set(key);
+			Files.move(spooled, kept);
+			return true;
+		})) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+
+		awaitIdle();
+		assertEquals("hash", takenKey.get());
+		assertArrayEquals(data, Files.readAllBytes(kept));
+		Files.delete(kept);
+	}
+
+	@Test
+	void refusedCompletionLeavesNothingBehind() throws Exception {
+		byte[] data = random(10_000);
+		try (InputStream in = fetcher.open("hash", data.length, () -> new ByteArrayInputStream(data), (key, size, spooled) -> false)) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+
+		awaitIdle();
+		assertEquals(0, spoolFiles());
+	}
+
+	@Test
+	void sourceErrorReachesTheCallerAndIsNotShared() throws Exception {
+		assertThrows(FileNotFoundException.class, () -> fetcher.open("hash", 10, () -> {
+			throw new FileNotFoundException("missing");
+		}, (key, size, spooled) -> false));
+
+		awaitIdle();
+		assertEquals(1, fetcher.stats().failures());
+		assertEquals(0, spoolFiles());
+
+		// The failed fetch is gone, so the next read starts a new one
+		byte[] data = random(10);
+		try (InputStream in = fetcher.open("hash", data.length, () -> new ByteArrayInputStream(data), (key, size, spooled) -> false)) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+		assertEquals(2, fetcher.stats().fetches());
+	}
+
+	@Test
+	void objectShorterThanRecordedFailsTheReader() throws Exception {
+		byte[] data = random(1000);
+		boolean[] taken = {false};
+		try (InputStream in = fetcher.open("hash", data.length + 1, () -> new ByteArrayInputStream(data), (key, size, spooled) -> {
+			taken[0] = true;
+			return true;
+		})) {
+			assertThrows(EOFException.class, in::readAllBytes);
+		}
+
+		awaitIdle();
+		assertFalse(taken[0], "a short fetch must not be handed off");
+		assertEquals(0, spoolFiles());
+	}
+
+	@Test
+	void differentKeysAreFetchedSeparately() throws Exception {
+		byte[] first = random(100);
+		byte[] second = random(200);
+		try (InputStream a = fetcher.open("a", first.length, () -> new ByteArrayInputStream(first), (key, size, spooled) -> false);
+			 InputStream b = fetcher.open("b", second.length, () -> new ByteArrayInputStream(second), (key, size, spooled) -> false)) {
+			assertArrayEquals(first, a.readAllBytes());
+			assertArrayEquals(second, b.readAllBytes());
+		}
+		assertEquals(2, fetcher.stats().fetches());
+		assertEquals(0, fetcher.stats().coalesced());
+	}
+
+	// The fetch thread hands off or deletes the spool just after readers see the last byte
+	private void awaitIdle() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (fetcher.stats().inFlight() > 0 || fetchExecutor.getActiveCount() > 0) {
+			assertTrue(System.nanoTime() < deadline, "fetch did not finish");
+			Thread.sleep(5);
+		}
+	}
+
+	private long spoolFiles() throws IOException {
+		try (var files = Files.list(spool)) {
+			return files.count();
+		}
+	}
+
+	// Endless content that only starts once released
+	private static InputStream blockedUntil(CountDownLatch release) {
+		return new InputStream() {
+			@Override
+			public int read() {
+				await(release);
+				return 0;
+			}
+		};
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static byte[] random(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+}
@@ -0,0 +1,88 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangesTests {
+
+	private static final long LENGTH = 1000;
+
+	@Test
+	void closedRange() {
+		assertEquals(List.of(range(0, 99)), ByteRanges.resolve("bytes=0-99", LENGTH));
+	}
+
+	@Test
+	void closedRangePastTheEndIsClamped() {
+		assertEquals(List.of(range(900, 999)), ByteRanges.resolve("bytes=900-5000", LENGTH));
+	}
+
+	@Test
+	void openEndedRangeRunsToTheEnd() {
+		assertEquals(List.of(range(500, 999)), ByteRanges.resolve("bytes=500-", LENGTH));
+	}
+
+	@Test
+	void suffixRangeTakesTheLastBytes() {
+		assertEquals(List.of(range(800, 999)), ByteRanges.resolve("bytes=-200", LENGTH));
+	}
+
+	@Test
+	void suffixLongerThanTheFileTakesAllOfIt() {
+		assertEquals(List.of(range(0, 999)), ByteRanges.resolve("bytes=-5000", LENGTH));
+	}
+
+	@Test
+	void overlappingAndAdjacentRangesAreMergedAndSorted() {
+		assertEquals(List.of(range(0, 200), range(400, 999)),
+				ByteRanges.resolve("bytes=400-,50-150,0-99,151-200", LENGTH));
+	}
+
+	@Test
+	void disjointRangesStaySeparate() {
+		assertEquals(List.of(range(0, 9), range(20, 29)), ByteRanges.resolve("bytes=20-29,0-9", LENGTH));
+	}
+
+	@Test
+	void unsatisfiableRangesGiveAnEmptyList() {
+		assertTrue(ByteRanges.resolve("bytes=1000-2000", LENGTH).isEmpty());
+		assertTrue(ByteRanges.resolve("bytes=-0", LENGTH).isEmpty());
+		assertTrue(ByteRanges.resolve("bytes=0-", 0).isEmpty());
+	}
+
+	@Test
+	void unsatisfiableRangesAreDroppedWhenOthersCanBeServed() {
+		assertEquals(List.of(range(0, 9)), ByteRanges.resolve("bytes=2000-3000,0-9", LENGTH));
+	}
+
+	@Test
+	void malformedHeadersAreIgnored() {
+		assertNull(ByteRanges.resolve("", LENGTH));
+		assertNull(ByteRanges.resolve("bytes=abc", LENGTH));
+		assertNull(ByteRanges.resolve("bytes=10-5", LENGTH));
+		assertNull(ByteRanges.resolve("items=0-10", LENGTH));
+		assertNull(ByteRanges.resolve("bytes=", LENGTH));
+	}
+
+	@Test
+	void tooManyRangesAreIgnoredUnlessTheyMerge() {
+		StringJoiner disjoint = new StringJoiner(",", "bytes=", "");
+		StringJoiner touching = new StringJoiner(",", "bytes=", "");
+		for (int i = 0; i <= ByteRanges.MAX_RANGES; i++) {
+			disjoint.add((i * 10) + "-" + (i * 10 + 4));
+			touching.add((i * 10) + "-" + (i * 10 + 9));
+		}
+		assertNull(ByteRanges.resolve(disjoint.toString(), LENGTH));
+		assertEquals(List.of(range(0, ByteRanges.MAX_RANGES * 10 + 9)), ByteRanges.resolve(touching.toString(), LENGTH));
+	}
+
+	private static ByteRanges.Range range(long start, long end) {
+		return new ByteRanges.Range(start, end);
+	}
+}
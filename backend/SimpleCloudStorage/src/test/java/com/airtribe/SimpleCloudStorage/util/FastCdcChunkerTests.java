@@ -0,0 +1,125 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dedup of chunked files relies on the cut points being a pure function of the content
+class FastCdcChunkerTests {
+
+	private static final int MIN = 2 * 1024;
+	private static final int AVG = 8 * 1024;
+	private static final int MAX = 32 * 1024;
+
+	@Test
+	void chunkSizesStayWithinBoundsAndAverageOut() throws IOException {
+		byte[] data = random(4 * 1024 * 1024, 1);
+		List<byte[]> chunks = chunk(new ByteArrayInputStream(data));
+
+		for (int i = 0; i < chunks.size() - 1; i++) {
+			int size = chunks.get(i).length;
+			assertTrue(size >= MIN && size <= MAX, "chunk " + i + " has " + size + " bytes");
+		}
+		assertTrue(chunks.get(chunks.size() - 1).length <= MAX);
+		double average = (double) data.length / chunks.size();
+		assertTrue(average > AVG / 2.0 && average < AVG * 2.0, "average chunk size " + average);
+		assertArrayEquals(data, concat(chunks));
+	}
+
+	@Test
+	void sameInputGivesSameCutsHoweverItIsRead() throws IOException {
+		byte[] data = random(1024 * 1024, 2);
+		List<Integer> cuts = sizes(chunk(new ByteArrayInputStream(data)));
+
+		assertEquals(cuts, sizes(chunk(new ByteArrayInputStream(data))));
+		assertEquals(cuts, sizes(chunk(new TrickleInputStream(data))));
+	}
+
+	@Test
+	void insertedBytesOnlyChangeNearbyChunks() throws IOException {
+		byte[] original = random(2 * 1024 * 1024, 3);
+		byte[] insert = random(100, 4);
+		int at = original.length / 2;
+		byte[] edited = new byte[original.length + insert.length];
+		System.arraycopy(original, 0, edited, 0, at);
+		System.arraycopy(insert, 0, edited, at, insert.length);
+		System.arraycopy(original, at, edited, at + insert.length, original.length - at);
+
+		Set<String> before = new HashSet<>();
+		chunk(new ByteArrayInputStream(original)).forEach(chunk -> before.add(key(chunk)));
+		List<byte[]> after = chunk(new ByteArrayInputStream(edited));
+		long changed = after.stream().filter(chunk -> !before.contains(key(chunk))).count();
+
+		// The chunk holding the insertion, maybe the next one until the cuts line up again
+		assertTrue(changed >= 1 && changed <= 3, changed + " of " + after.size() + " chunks changed");
+	}
+
+	@Test
+	void emptyInputHasNoChunks() throws IOException {
+		assertNull(new FastCdcChunker(new ByteArrayInputStream(new byte[0]), MIN, AVG, MAX).next());
+	}
+
+	@Test
+	void rejectsInconsistentSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new FastCdcChunker(InputStream.nullInputStream(), 0, AVG, MAX));
+		assertThrows(IllegalArgumentException.class, () -> new FastCdcChunker(InputStream.nullInputStream(), AVG, MIN, MAX));
+		assertThrows(IllegalArgumentException.class, () -> new FastCdcChunker(InputStream.nullInputStream(), MIN, MAX, AVG));
+	}
+
+	private static List<byte[]> chunk(InputStream source) throws IOException {
+		FastCdcChunker chunker = new FastCdcChunker(source, MIN, AVG, MAX);
+		List<byte[]> chunks = new ArrayList<>();
+		for (byte[] chunk = chunker.next(); chunk != null; chunk = chunker.next()) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	private static List<Integer> sizes(List<byte[]> chunks) {
+		return chunks.stream().map(chunk -> chunk.length).toList();
+	}
+
+	private static byte[] concat(List<byte[]> chunks) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		chunks.forEach(out::writeBytes);
+		return out.toByteArray();
+	}
+
+	private static String key(byte[] chunk) {
+		return HexFormat.of().formatHex(chunk);
+	}
+
+	private static byte[] random(int length, long seed) {
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	// Hands out a few bytes per read, like a slow network stream
+	private static final class TrickleInputStream extends ByteArrayInputStream {
+
+		TrickleInputStream(byte[] data) {
+			super(data);
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, 1 + pos % 97));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import com.airtribe.SimpleCloudStorage.entity.File;
+import com.airtribe.SimpleCloudStorage.enums.FileSortOrder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileCursorTests {
+
+	@Test
+	void nameCursorRoundTrips() {
+		FileCursor cursor = new FileCursor(FileSortOrder.NAME, "report.pdf", 42);
+		assertEquals(cursor, FileCursor.decode(cursor.encode(), FileSortOrder.NAME));
+	}
+
+	@Test
+	void nameContainingTheSeparatorRoundTrips() {
+		FileCursor cursor = new FileCursor(FileSortOrder.NAME, "a|b|c.txt", 7);
+		assertEquals(cursor, FileCursor.decode(cursor.encode(), FileSortOrder.NAME));
+	}
+
+	@Test
+	void createdCursorRoundTrips() {
+		FileCursor cursor = new FileCursor(FileSortOrder.CREATED, new Date(1_700_000_000_123L), 3);
+		assertEquals(cursor, FileCursor.decode(cursor.encode(), FileSortOrder.CREATED));
+	}
+
+	@Test
+	void sizeCursorRoundTrips() {
+		FileCursor cursor = new FileCursor(FileSortOrder.SIZE, 5_000_000_000L, 9);
+		assertEquals(cursor, FileCursor.decode(cursor.encode(), FileSortOrder.SIZE));
+	}
+
+	@Test
+	void relevanceCursorRoundTrips() {
+		FileCursor cursor = new FileCursor(FileSortOrder.RELEVANCE, 0.0759909, 11);
+		assertEquals(cursor, FileCursor.decode(cursor.encode(), FileSortOrder.RELEVANCE));
+	}
+
+	@Test
+	void cursorAfterFileUsesItsSortKey() {
+		File file = new File();
+		file.setFile_id(5);
+		file.setFileName("notes.txt");
+		file.setFileSize(1234L);
+
+		assertEquals(new FileCursor(FileSortOrder.NAME, "notes.txt", 5), FileCursor.after(file, FileSortOrder.NAME));
+		assertEquals(new FileCursor(FileSortOrder.SIZE, 1234L, 5), FileCursor.after(file, FileSortOrder.SIZE));
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.after(file, FileSortOrder.RELEVANCE));
+	}
+
+	@Test
+	void cursorForAnotherSortIsRejected() {
+		String cursor = new FileCursor(FileSortOrder.NAME, "report.pdf", 42).encode();
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> FileCursor.decode(cursor, FileSortOrder.SIZE));
+		assertEquals("Cursor does not belong to this listing", e.getMessage());
+	}
+
+	@Test
+	void notBase64IsRejected() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> FileCursor.decode("not a cursor!", FileSortOrder.NAME));
+		assertEquals("Invalid cursor", e.getMessage());
+	}
+
+	@Test
+	void missingFieldsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.decode(encode("NAME|42"), FileSortOrder.NAME));
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.decode("", FileSortOrder.NAME));
+	}
+
+	@Test
+	void tamperedIdIsRejected() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> FileCursor.decode(encode("NAME|42 OR 1=1|report.pdf"), FileSortOrder.NAME));
+		assertEquals("Invalid cursor", e.getMessage());
+	}
+
+	@Test
+	void tamperedKeyIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.decode(encode("SIZE|9|big"), FileSortOrder.SIZE));
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.decode(encode("CREATED|3|yesterday"), FileSortOrder.CREATED));
+		assertThrows(IllegalArgumentException.class, () -> FileCursor.decode(encode("RELEVANCE|11|high"), FileSortOrder.RELEVANCE));
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
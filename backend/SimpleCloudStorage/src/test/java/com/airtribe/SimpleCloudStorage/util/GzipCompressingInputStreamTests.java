@@ -0,0 +1,77 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The stored objects are served with Content-Encoding: gzip, so they must be valid for any gzip reader
+class GzipCompressingInputStreamTests {
+
+	@Test
+	void emptyInputIsAValidGzipStream() throws IOException {
+		assertRoundTrip(new byte[0]);
+	}
+
+	@Test
+	void smallInputRoundTrips() throws IOException {
+		assertRoundTrip("hello, gzip".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void compressibleInputOverTheBufferSizeRoundTripsAndShrinks() throws IOException {
+		byte[] text = "line of a fairly repetitive log file\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+		assertTrue(text.length > 65536);
+
+		byte[] gzip = assertRoundTrip(text);
+		assertTrue(gzip.length < text.length / 10, "compressed to " + gzip.length + " bytes");
+	}
+
+	@Test
+	void incompressibleInputOverTheBufferSizeRoundTrips() throws IOException {
+		byte[] data = new byte[200 * 1024 + 7];
+		new Random(9).nextBytes(data);
+		assertRoundTrip(data);
+	}
+
+	@Test
+	void singleByteReadsGiveTheSameOutput() throws IOException {
+		byte[] text = "abcabcabd".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+		byte[] bulk = compress(text);
+
+		ByteArrayOutputStream single = new ByteArrayOutputStream();
+		try (InputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(text), Deflater.DEFAULT_COMPRESSION)) {
+			for (int b = in.read(); b != -1; b = in.read()) {
+				single.write(b);
+			}
+		}
+		assertArrayEquals(bulk, single.toByteArray());
+	}
+
+	// Compresses, checks the reported size and that GZIPInputStream restores the input
+	private static byte[] assertRoundTrip(byte[] input) throws IOException {
+		byte[] gzip = compress(input);
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			assertArrayEquals(input, in.readAllBytes());
+		}
+		return gzip;
+	}
+
+	private static byte[] compress(byte[] input) throws IOException {
+		try (GzipCompressingInputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(input), Deflater.DEFAULT_COMPRESSION)) {
+			byte[] gzip = in.readAllBytes();
+			assertEquals(gzip.length, in.getBytesProduced());
+			return gzip;
+		}
+	}
+}
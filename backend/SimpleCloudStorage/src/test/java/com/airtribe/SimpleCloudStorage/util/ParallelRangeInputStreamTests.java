@@ -0,0 +1,169 @@
+package com.airtribe.SimpleCloudStorage.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelRangeInputStreamTests {
+
+	private static final int PART = 1000;
+
+	private final ExecutorService pool = Executors.newFixedThreadPool(4);
+	private final TaskExecutorAdapter executor = new TaskExecutorAdapter(pool);
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void returnsBytesInOrderWhenLaterRangesFinishFirst() throws IOException {
+		byte[] data = random(10 * PART + 123);
+		// Earlier ranges are the slowest, so parts complete out of order
+		ParallelRangeInputStream.RangeFetcher slowFirst = (start, end) -> {
+			sleep(Math.max(0, 40 - start / PART * 10));
+			return slice(data, start, end);
+		};
+
+		try (InputStream in = new ParallelRangeInputStream(slowFirst, data.length, PART, 4, executor)) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void singleByteReadsMatchBulkReads() throws IOException {
+		byte[] data = random(3 * PART + 1);
+		try (InputStream in = new ParallelRangeInputStream((start, end) -> slice(data, start, end), data.length, PART, 2, executor)) {
+			for (byte expected : data) {
+				assertEquals(expected & 0xFF, in.read());
+			}
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	void emptyObjectEndsImmediately() throws IOException {
+		try (InputStream in = new ParallelRangeInputStream((start, end) -> {
+			throw new AssertionError("nothing to fetch");
+		}, 0, PART, 4, executor)) {
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	void fetchesNoMoreThanTheWindowAheadOfTheReader() throws Exception {
+		byte[] data = random(20 * PART);
+		AtomicInteger opened = new AtomicInteger();
+		CountDownLatch windowFull = new CountDownLatch(3);
+		ParallelRangeInputStream.RangeFetcher counting = (start, end) -> {
+			opened.incrementAndGet();
+			windowFull.countDown();
+			return slice(data, start, end);
+		};
+
+		try (InputStream in = new ParallelRangeInputStream(counting, data.length, PART, 3, executor)) {
+			assertTrue(windowFull.await(5, TimeUnit.SECONDS));
+			Thread.sleep(50);
+			assertEquals(3, opened.get());
+
+			in.readNBytes(PART); // consuming one part lets exactly one more start
+			Thread.sleep(50);
+			assertEquals(4, opened.get());
+		}
+	}
+
+	@Test
+	void failedRangeSurfacesAsIOException() {
+		byte[] data = random(6 * PART);
+		ParallelRangeInputStream.RangeFetcher failing = (start, end) -> {
+			if (start == 3 * PART) {
+				throw new IOException("range 3 failed");
+			}
+			return slice(data, start, end);
+		};
+
+		InputStream in = new ParallelRangeInputStream(failing, data.length, PART, 2, executor);
+		IOException error = assertThrows(IOException.class, in::readAllBytes);
+		assertEquals("range 3 failed", error.getMessage());
+		assertThrows(IOException.class, in::read); // closed after the failure
+	}
+
+	@Test
+	void uncheckedFailureIsWrappedInIOException() {
+		ParallelRangeInputStream.RangeFetcher failing = (start, end) -> {
+			throw new IllegalStateException("boom");
+		};
+
+		InputStream in = new ParallelRangeInputStream(failing, PART, PART, 2, executor);
+		IOException error = assertThrows(IOException.class, in::read);
+		assertTrue(error.getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	void shortRangeIsAnError() {
+		byte[] data = random(2 * PART);
+		ParallelRangeInputStream.RangeFetcher truncating = (start, end) -> slice(data, start, end - 10);
+
+		InputStream in = new ParallelRangeInputStream(truncating, data.length, PART, 2, executor);
+		assertThrows(EOFException.class, in::readAllBytes);
+	}
+
+	@Test
+	void closeCancelsFetchesInFlight() throws Exception {
+		byte[] data = random(4 * PART);
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ParallelRangeInputStream.RangeFetcher blocking = (start, end) -> {
+			started.countDown();
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				throw new IOException("aborted", e);
+			}
+			return slice(data, start, end);
+		};
+
+		InputStream in = new ParallelRangeInputStream(blocking, data.length, PART, 2, executor);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		in.close();
+
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertThrows(IOException.class, in::read);
+	}
+
+	private static InputStream slice(byte[] data, long start, long end) {
+		return new ByteArrayInputStream(Arrays.copyOfRange(data, (int) start, (int) end + 1));
+	}
+
+	private static byte[] random(int length) {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}